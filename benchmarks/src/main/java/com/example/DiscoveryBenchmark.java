@@ -0,0 +1,121 @@
+package com.example;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+/**
+ * Stages of the discovery hot path in BotOrchestrator: exchangeInfo filtering, ticker24H parsing, top-N selection
+ * (by quote volume and by multi-metric score), plus the whole pipeline. Throughput and sampled latency (p99 etc.) come from the two benchmark modes;
+ * add "-prof gc" for allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class DiscoveryBenchmark {
+    private static final String QUOTE_ASSET = "USDC";
+    private static final String TRADING_STATUS = "TRADING";
+    private static final int TOP_N = 20;
+    @Param({"1000", "5000", "20000"})
+    public int symbols;
+    // "synthetic", or a directory with recorded exchangeInfo.json and ticker24H.json (-p source=/path/to/recording)
+    @Param({"synthetic"})
+    public String source;
+    private String exchangeInfoJson;
+    private String tickersJson;
+    private Set<String> activeSymbols;
+    private TickerVolumes volumes;
+    private List<Map<String, Object>> tickerMaps;
+    private final ScoringEngine scoring = ScoringEngine.fromProperty("quoteVolume:1,count:0.5,volatility:0.25,spread:-0.5");
+    @Setup
+    public void setUp() throws IOException {
+        MarketFixtures fixtures = MarketFixtures.load(source, symbols);
+        exchangeInfoJson = fixtures.exchangeInfoJson();
+        tickersJson = fixtures.tickersJson();
+        activeSymbols = ExchangeInfoStreamParser.parseActiveSymbols(exchangeInfoJson, QUOTE_ASSET, TRADING_STATUS);
+        volumes = TickerStreamParser.parse(tickersJson, activeSymbols);
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> all = MarketJson.MAPPER.readValue(tickersJson, List.class);
+        tickerMaps = new ArrayList<>();
+        for (Map<String, Object> ticker : all) {
+            if (activeSymbols.contains((String) ticker.get("symbol"))) {
+                tickerMaps.add(ticker);
+            }
+        }
+    }
+    @Benchmark
+    public Set<String> parseExchangeInfo() throws IOException {
+        return ExchangeInfoStreamParser.parseActiveSymbols(exchangeInfoJson, QUOTE_ASSET, TRADING_STATUS);
+    }
+    @Benchmark
+    public TickerVolumes parseTickers() throws IOException {
+        return TickerStreamParser.parse(tickersJson, activeSymbols);
+    }
+    @Benchmark
+    public String[] selectTopN() {
+        return new TopNSelector(TOP_N).selectSymbols(volumes);
+    }
+    /**
+     * Multi-metric ranking: standardize four ticker columns, combine them into one score column, then select the top N.
+     */
+    @Benchmark
+    public int[] scoreTopN() {
+        return new TopNSelector(TOP_N).select(scoring.score(volumes), volumes.size());
+    }
+    /**
+     * Baseline for selectTopN: the sort the orchestrator used before TopNSelector, over the tree-bound ticker maps,
+     * parsing both quoteVolume strings on every comparison.
+     */
+    @Benchmark
+    public List<String> mapSortTopN() {
+        List<Map<String, Object>> pairs = new ArrayList<>(tickerMaps);
+        pairs.sort((a, b) -> {
+            double volA = Double.parseDouble((String) a.get("quoteVolume"));
+            double volB = Double.parseDouble((String) b.get("quoteVolume"));
+            return Double.compare(volB, volA); // Descending
+        });
+        List<String> top = new ArrayList<>(TOP_N);
+        for (int i = 0; i < Math.min(TOP_N, pairs.size()); i++) {
+            top.add((String) pairs.get(i).get("symbol"));
+        }
+        return top;
+    }
+    /**
+     * A full sort of boxed row indices over the already-parsed volume column: separates what the bounded heap saves
+     * from what parsing once into primitives saves (mapSortTopN minus this).
+     */
+    @Benchmark
+    public List<String> sortTopN() {
+        List<Integer> rows = new ArrayList<>(volumes.size());
+        for (int i = 0; i < volumes.size(); i++) {
+            rows.add(i);
+        }
+        rows.sort(Comparator.comparingDouble((Integer i) -> volumes.quoteVolume(i)).reversed());
+        List<String> top = new ArrayList<>(TOP_N);
+        for (int i = 0; i < Math.min(TOP_N, rows.size()); i++) {
+            top.add(volumes.symbol(rows.get(i)));
+        }
+        return top;
+    }
+    @Benchmark
+    public String[] pipeline() throws IOException {
+        Set<String> active = ExchangeInfoStreamParser.parseActiveSymbols(exchangeInfoJson, QUOTE_ASSET, TRADING_STATUS);
+        return new TopNSelector(TOP_N).selectSymbols(TickerStreamParser.parse(tickersJson, active));
+    }
+}
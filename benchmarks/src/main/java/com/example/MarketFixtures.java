@@ -0,0 +1,105 @@
+package com.example;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+/**
+ * exchangeInfo and ticker24H payloads for the benchmarks, shaped like Binance responses.
+ * Synthetic fixtures are generated from a fixed seed. Recorded fixtures (exchangeInfo.json and ticker24H.json in a directory)
+ * are cycled with renamed symbols until they reach the requested size, so real field layouts can be measured at any scale.
+ */
+final class MarketFixtures {
+    private static final String[] QUOTES = {"USDC", "USDT", "BTC", "FDUSD", "EUR"};
+    private final String exchangeInfoJson;
+    private final String tickersJson;
+    private MarketFixtures(String exchangeInfoJson, String tickersJson) {
+        this.exchangeInfoJson = exchangeInfoJson;
+        this.tickersJson = tickersJson;
+    }
+    String exchangeInfoJson() {
+        return exchangeInfoJson;
+    }
+    String tickersJson() {
+        return tickersJson;
+    }
+    /**
+     * "synthetic" or a directory holding recorded exchangeInfo.json and ticker24H.json.
+     */
+    static MarketFixtures load(String source, int symbols) throws IOException {
+        return "synthetic".equals(source) ? synthetic(symbols, 42) : recorded(Path.of(source), symbols);
+    }
+    static MarketFixtures synthetic(int symbols, long seed) {
+        Random random = new Random(seed);
+        StringBuilder info = new StringBuilder(symbols * 700);
+        StringBuilder tickers = new StringBuilder(symbols * 450);
+        info.append("{\"timezone\":\"UTC\",\"serverTime\":1700000000000,\"rateLimits\":[],\"exchangeFilters\":[],\"symbols\":[");
+        tickers.append('[');
+        for (int i = 0; i < symbols; i++) {
+            String base = "A" + Integer.toString(i, 36).toUpperCase(Locale.ROOT);
+            // Roughly the real mix: a third of pairs quote in USDC and a few are halted
+            String quote = random.nextInt(3) == 0 ? "USDC" : QUOTES[1 + random.nextInt(QUOTES.length - 1)];
+            String status = random.nextInt(10) == 0 ? "BREAK" : "TRADING";
+            String symbol = base + quote;
+            if (i > 0) {
+                info.append(',');
+                tickers.append(',');
+            }
+            info.append("{\"symbol\":\"").append(symbol).append("\",\"status\":\"").append(status)
+                    .append("\",\"baseAsset\":\"").append(base).append("\",\"baseAssetPrecision\":8,\"quoteAsset\":\"").append(quote)
+                    .append("\",\"quotePrecision\":8,\"quoteAssetPrecision\":8,\"orderTypes\":[\"LIMIT\",\"LIMIT_MAKER\",\"MARKET\",\"STOP_LOSS_LIMIT\",\"TAKE_PROFIT_LIMIT\"]")
+                    .append(",\"icebergAllowed\":true,\"ocoAllowed\":true,\"isSpotTradingAllowed\":true,\"isMarginTradingAllowed\":false")
+                    .append(",\"filters\":[{\"filterType\":\"PRICE_FILTER\",\"minPrice\":\"0.00010000\",\"maxPrice\":\"1000.00000000\",\"tickSize\":\"0.00010000\"}")
+                    .append(",{\"filterType\":\"LOT_SIZE\",\"minQty\":\"0.10000000\",\"maxQty\":\"92141578.00000000\",\"stepSize\":\"0.10000000\"}")
+                    .append(",{\"filterType\":\"NOTIONAL\",\"minNotional\":\"5.00000000\",\"applyMinToMarket\":true}]")
+                    .append(",\"permissions\":[],\"permissionSets\":[[\"SPOT\"]],\"defaultSelfTradePreventionMode\":\"EXPIRE_MAKER\"}");
+            // Log-normal volumes give the long tail real markets have
+            double price = Math.exp(random.nextGaussian() * 3);
+            double volume = Math.exp(10 + random.nextGaussian() * 3);
+            String p = decimal(price);
+            // Spreads of a few basis points, wider on thin books
+            String ask = decimal(price * (1 + 0.0001 * (1 + Math.abs(random.nextGaussian()) * 20)));
+            tickers.append("{\"symbol\":\"").append(symbol)
+                    .append("\",\"priceChange\":\"").append(decimal(price * random.nextGaussian() * 0.05))
+                    .append("\",\"priceChangePercent\":\"").append(String.format(Locale.ROOT, "%.3f", random.nextGaussian() * 5))
+                    .append("\",\"weightedAvgPrice\":\"").append(p).append("\",\"prevClosePrice\":\"").append(p)
+                    .append("\",\"lastPrice\":\"").append(p).append("\",\"lastQty\":\"1.00000000\",\"bidPrice\":\"").append(p)
+                    .append("\",\"bidQty\":\"10.00000000\",\"askPrice\":\"").append(ask).append("\",\"askQty\":\"10.00000000\",\"openPrice\":\"").append(p)
+                    .append("\",\"highPrice\":\"").append(p).append("\",\"lowPrice\":\"").append(p)
+                    .append("\",\"volume\":\"").append(decimal(volume)).append("\",\"quoteVolume\":\"").append(decimal(volume * price))
+                    .append("\",\"openTime\":1699913600000,\"closeTime\":1700000000000,\"firstId\":1,\"lastId\":").append(1 + random.nextInt(1_000_000))
+                    .append(",\"count\":").append(random.nextInt(1_000_000)).append('}');
+        }
+        info.append("]}");
+        tickers.append(']');
+        return new MarketFixtures(info.toString(), tickers.toString());
+    }
+    static MarketFixtures recorded(Path dir, int symbols) throws IOException {
+        ObjectNode info = (ObjectNode) MarketJson.MAPPER.readTree(Files.readString(dir.resolve("exchangeInfo.json")));
+        JsonNode tickers = MarketJson.MAPPER.readTree(Files.readString(dir.resolve("ticker24H.json")));
+        info.set("symbols", scale((ArrayNode) info.get("symbols"), symbols));
+        return new MarketFixtures(MarketJson.MAPPER.writeValueAsString(info),
+                MarketJson.MAPPER.writeValueAsString(scale((ArrayNode) tickers, symbols)));
+    }
+    /**
+     * Cycles through the recorded entries; copy k of a symbol is renamed SYMBOL#k in both payloads, so exchangeInfo and tickers stay joined.
+     */
+    private static ArrayNode scale(ArrayNode recorded, int size) {
+        ArrayNode scaled = MarketJson.MAPPER.createArrayNode();
+        for (int i = 0; i < size && recorded.size() > 0; i++) {
+            ObjectNode entry = ((ObjectNode) recorded.get(i % recorded.size())).deepCopy();
+            int copy = i / recorded.size();
+            if (copy > 0) {
+                entry.put("symbol", entry.get("symbol").asText() + "#" + copy);
+            }
+            scaled.add(entry);
+        }
+        return scaled;
+    }
+    private static String decimal(double value) {
+        return String.format(Locale.ROOT, "%.8f", value);
+    }
+}
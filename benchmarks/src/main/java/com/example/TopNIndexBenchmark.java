@@ -0,0 +1,99 @@
+package com.example;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+/**
+ * Streaming top-N maintenance: one volume update at a time over 10k symbols, applied to {@link TopNIndex}
+ * versus re-selecting the whole column with {@link TopNSelector} after every update.
+ * oneSecondOfUpdates applies 50,000 updates per invocation, the target stream rate; it must stay well under 1 s/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopNIndexBenchmark {
+    private static final int TOP_N = 20;
+    private static final int UPDATES_PER_SECOND = 50_000;
+    // Pre-generated update stream, replayed cyclically so the RNG stays out of the measurement
+    private static final int STREAM_LENGTH = 1 << 20;
+    @Param({"10000"})
+    public int symbols;
+    private double[] volumes;
+    private int[] updateIds;
+    private double[] updateFactors;
+    private int cursor;
+    private TopNIndex index;
+    private TopNSelector selector;
+    private int events;
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        volumes = new double[symbols];
+        index = new TopNIndex(TOP_N, symbols, new TopNIndex.Listener() {
+            @Override
+            public void entered(int id) {
+                events++;
+            }
+            @Override
+            public void left(int id) {
+                events++;
+            }
+        });
+        for (int id = 0; id < symbols; id++) {
+            volumes[id] = Math.exp(10 + random.nextGaussian() * 3);
+            index.update(id, volumes[id]);
+        }
+        selector = new TopNSelector(TOP_N);
+        updateIds = new int[STREAM_LENGTH];
+        updateFactors = new double[STREAM_LENGTH];
+        for (int i = 0; i < STREAM_LENGTH; i++) {
+            // Skewed ids: some symbols tick far more often than others, as on the real stream
+            updateIds[i] = (int) (symbols * Math.pow(random.nextDouble(), 2));
+            updateFactors[i] = 1 + random.nextGaussian() * 0.01;
+        }
+    }
+    private int nextUpdate() {
+        int i = cursor;
+        cursor = (cursor + 1) & (STREAM_LENGTH - 1);
+        int id = updateIds[i];
+        volumes[id] *= updateFactors[i];
+        return id;
+    }
+    @Benchmark
+    public boolean indexUpdate() {
+        int id = nextUpdate();
+        index.update(id, volumes[id]);
+        return index.inTop(id);
+    }
+    /**
+     * Baseline: what a per-tick full re-selection costs.
+     */
+    @Benchmark
+    public int[] selectorReselect() {
+        nextUpdate();
+        return selector.select(volumes, symbols);
+    }
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void oneSecondOfUpdates(Blackhole blackhole) {
+        for (int i = 0; i < UPDATES_PER_SECOND; i++) {
+            int id = nextUpdate();
+            index.update(id, volumes[id]);
+        }
+        blackhole.consume(events);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example;
+import com.binance.connector.client.SpotClient;
+import com.binance.connector.client.exceptions.BinanceClientException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+/**
+ * Live market data from the Binance spot REST API, metered by a shared {@link RateBudget}.
+ * The connector only returns bodies, so limit usage reporting is switched on: responses then arrive wrapped as
+ * {"x-mbx-used-weight-1m": "...", "data": "&lt;body&gt;"} and are unwrapped here after feeding the header to the budget.
+ */
+final class BinanceMarketDataSource implements MarketDataSource {
+    // Request weights from the Binance spot API docs
+    static final int EXCHANGE_INFO_WEIGHT = 20;
+    static final int TICKER_24H_ALL_WEIGHT = 80;
+    private final SpotClient client;
+    private final RateBudget budget;
+    BinanceMarketDataSource(SpotClient client, RateBudget budget) {
+        this.client = client;
+        this.budget = budget;
+        client.setShowLimitUsage(true);
+    }
+    @Override
+    public String exchangeInfo() throws Exception {
+        return call("exchangeInfo", EXCHANGE_INFO_WEIGHT, () -> client.createMarket().exchangeInfo(new LinkedHashMap<>()));
+    }
+    @Override
+    public String ticker24H() throws Exception {
+        return call("ticker24H", TICKER_24H_ALL_WEIGHT, () -> client.createMarket().ticker24H(new LinkedHashMap<>()));
+    }
+    private String call(String endpoint, int weight, Supplier<String> request) throws IOException, InterruptedException {
+        budget.acquire(endpoint, weight);
+        String wrapped;
+        try {
+            wrapped = request.get();
+        } catch (BinanceClientException e) {
+            if (e.getHttpStatusCode() == 429 || e.getHttpStatusCode() == 418) {
+                // The connector drops the Retry-After header, so the budget falls back to its own backoff
+                budget.onRateLimited(e.getHttpStatusCode(), -1);
+            }
+            throw e;
+        }
+        // The connector throws on every non-2xx status, so reaching here means the exchange accepted the call
+        budget.onSuccess();
+        return unwrap(wrapped, weight);
+    }
+    private String unwrap(String wrapped, int weight) throws IOException {
+        String data = null;
+        try (JsonParser parser = MarketJson.factory().createParser(wrapped)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected limit-usage wrapper object but found " + parser.currentToken());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("data".equals(field)) {
+                    data = parser.getText();
+                } else if ("x-mbx-used-weight-1m".equals(field)) {
+                    budget.onUsedWeight(parser.getValueAsInt(0), weight);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        if (data == null) {
+            throw new IOException("Limit-usage wrapper carried no data");
+        }
+        return data;
+    }
+}
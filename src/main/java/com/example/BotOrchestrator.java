@@ -1,22 +1,41 @@
 package com.example;
 import com.binance.connector.client.SpotClient;
 import com.binance.connector.client.impl.SpotClientImpl;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 /**
- * Orchestrator to fetch top 20 USDC pairs by 24h quote volume and generate systemd service files for each TradingBot instance.
+ * Orchestrator to fetch the top USDC pairs (20 by default; more quote assets via ranking.quotes) by 24h quote volume
+ * and generate systemd service files for each TradingBot instance.
  * Each service will run the TradingBot JAR with the symbol as argument.
  *
  * Assumptions:
  * - TradingBot has been modified to accept symbol as args[0] (e.g., private static String SYMBOL = args.length > 0 ? args[0] : "SPKUSDC"; at the start of main).
- * - config.properties is in the classpath for API keys.
+ * - config.properties is in the classpath; API keys are only needed with market.source=binance (discovery uses public endpoints).
  * - The JAR is named "traderBot-1.0-SNAPSHOT.jar" and located in the working directory.
  * - Working directory is ~/trader_bots (created if needed).
  * - Run this program with sudo to automatically install and start the services.
  * - If not run with sudo, it will generate files but print manual installation instructions.
- * - Metric: 24h quote volume (in USDC) for active SPOT trading pairs ending with "USDC".
+ * - service.layout=template switches from one tradebot_<symbol>.service per bot to a single tradebot@.service template
+ *   with instances named tradebot@<SYMBOL>.service.
+ * - Each bot logs to workingDir/logs/<SYMBOL>.log; daemon mode rotates and gzips these by size and age.
+ * - "logs <SYMBOL> [--since 10m]" prints a bot's recent output using the per-minute offset index the daemon maintains.
+ * - With the "daemon [minutes]" argument (root only) it keeps re-ranking and only stops/starts bots whose top-N membership changed.
+ *   Daemon ranking is smoothed (EWMA over recent snapshots) with enter/exit rank bands to avoid churn at the boundary.
+ * - ranking.source=live makes the daemon follow the all-market mini-ticker WebSocket stream instead of polling ticker24H.
+ * - "churn <dir>" replays recorded ticker24H snapshots and reports swaps per day with and without smoothing.
+ * - Every ranked snapshot is appended to a memory-mapped binary history in workingDir/history (history.enabled);
+ *   "history [--since 30d]" summarizes it.
+ * - market.source=replay serves recorded exchangeInfo/ticker24H snapshots instead of Binance; market.record.dir records responses.
+ * - Metric: 24h quote volume (in the quote asset) for active SPOT trading pairs of each configured quote asset;
+ *   ranking.quotes=USDC:20,USDT:10 gives every quote its own quota, ranking.global.cap bounds the merged plan.
+ *   ranking.score.weights adds trade count, volatility and spread to the score (see ScoringEngine).
+ * - The active USDC symbol set is cached in the working directory for exchangeinfo.cache.ttl.minutes (config.properties, default 360, 0 disables).
  */
 public class BotOrchestrator {
     private static final Logger logger = Logger.getLogger(BotOrchestrator.class.getName());
@@ -24,6 +43,19 @@ public class BotOrchestrator {
     private static final String QUOTE_ASSET = "USDC";
     private static final String TRADING_STATUS = "TRADING";
     private static final String JAR_NAME = "traderBot-1.0-SNAPSHOT.jar";
+    static final String SYSTEMD_DIR = "/etc/systemd/system/";
+    private static final long DEFAULT_CACHE_TTL_MINUTES = 360;
+    private static final long DEFAULT_DAEMON_INTERVAL_MINUTES = 15;
+    static final String LOG_DIR = "logs";
+    private static final int DEFAULT_COMMAND_CONCURRENCY = 8;
+    private static final long DEFAULT_COMMAND_TIMEOUT_SECONDS = 60;
+    private static final long DEFAULT_LOG_INDEX_INTERVAL_SECONDS = 10;
+    // A one-shot run waits this long for a background exchangeInfo refresh before exiting (one HTTP request timeout)
+    private static final long REFRESH_EXIT_TIMEOUT_MILLIS = 30_000;
+    private static final String DEFAULT_LIVE_STREAM_URL = "wss://stream.binance.com:9443";
+    private static final long DEFAULT_LIVE_MIN_RECONCILE_SECONDS = 60;
+    private static final int DEFAULT_WEIGHT_LIMIT = 6000;
+    private static final String DEFAULT_MARKET_URL = "https://api.binance.com";
     public static void main(String[] args) throws Exception {
         // Determine real user and home (handles running with sudo)
         String sudoUser = System.getenv("SUDO_USER");
@@ -39,12 +71,7 @@ public class BotOrchestrator {
         String currentUser = System.getProperty("user.name");
         boolean isRoot = "root".equals(currentUser);
         String workingDir = home + "/trader_bots";
-        // Handle delete flag
-        if (args.length > 0 && "delete".equalsIgnoreCase(args[0])) {
-            deleteServices(workingDir, isRoot);
-            return;
-        }
-        // Load API credentials (same as TradingBot)
+        // Load configuration and API credentials (same as TradingBot)
         Properties props = new Properties();
         try (InputStream input = BotOrchestrator.class.getClassLoader().getResourceAsStream("config.properties")) {
             if (input == null) {
@@ -52,141 +79,369 @@ public class BotOrchestrator {
             }
             props.load(input);
         }
-        String apiKey = props.getProperty("api.key");
-        String secretKey = props.getProperty("api.secret");
-        if (apiKey == null || secretKey == null) {
-            throw new IllegalStateException("API credentials missing in config.properties");
-        }
-        logger.info("Loaded API credentials from config.properties");
-        SpotClient client = new SpotClientImpl(apiKey, secretKey);
-        // Fetch exchange info to get active USDC pairs
-        String exchangeJson = client.createMarket().exchangeInfo(new LinkedHashMap<>());
-        ObjectMapper mapper = new ObjectMapper();
-        @SuppressWarnings("unchecked")
-        Map<String, Object> exchangeInfo = mapper.readValue(exchangeJson, Map.class);
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> symbols = (List<Map<String, Object>>) exchangeInfo.get("symbols");
-        Set<String> activeUsdcSymbols = new HashSet<>();
-        for (Map<String, Object> sym : symbols) {
-            if (QUOTE_ASSET.equals(sym.get("quoteAsset")) && TRADING_STATUS.equals(sym.get("status"))) {
-                activeUsdcSymbols.add((String) sym.get("symbol"));
-            }
-        }
-        // Fetch all 24hr tickers
-        String tickersJson = client.createMarket().ticker24H(new LinkedHashMap<>());
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> tickers = mapper.readValue(tickersJson, List.class);
-        // Filter USDC pairs that are active, sort by quoteVolume descending
-        List<Map<String, Object>> usdcPairs = new ArrayList<>();
-        for (Map<String, Object> ticker : tickers) {
-            String symbol = (String) ticker.get("symbol");
-            if (symbol != null && activeUsdcSymbols.contains(symbol)) {
-                usdcPairs.add(ticker);
-            }
-        }
-        usdcPairs.sort((a, b) -> {
-            double volA = Double.parseDouble((String) a.get("quoteVolume"));
-            double volB = Double.parseDouble((String) b.get("quoteVolume"));
-            return Double.compare(volB, volA); // Descending
-        });
-        // Take top 20
-        List<String> topSymbols = new ArrayList<>();
-        for (int i = 0; i < Math.min(TOP_N, usdcPairs.size()); i++) {
-            String symbol = (String) usdcPairs.get(i).get("symbol");
-            topSymbols.add(symbol);
-            logger.info(String.format("Top %d: %s with quoteVolume %.2f USDC", i + 1, symbol,
-                    Double.parseDouble((String) usdcPairs.get(i).get("quoteVolume"))));
+        // Unit directory is configurable so installation can be exercised against a scratch directory
+        String unitDir = props.getProperty("systemd.unit.dir", SYSTEMD_DIR);
+        UnitLayout layout = UnitLayout.fromProperty(props.getProperty("service.layout"));
+        // Quote assets to run bots for, each with its own top-N quota, all ranked from one fetch and one parse
+        QuoteQuotas quotas = QuoteQuotas.fromProperties(props.getProperty("ranking.quotes"), props.getProperty("ranking.global.cap"), QUOTE_ASSET, TOP_N);
+        // Weighted ranking metrics over the ticker24H columns; plain quote volume unless configured
+        ScoringEngine scoring = ScoringEngine.fromProperty(props.getProperty("ranking.score.weights"));
+        // systemctl/rm invocations run with bounded parallelism and a per-command timeout
+        CommandExecutor commands = new CommandExecutor(
+                Integer.parseInt(props.getProperty("commands.concurrency", String.valueOf(DEFAULT_COMMAND_CONCURRENCY))),
+                Long.parseLong(props.getProperty("commands.timeout.seconds", String.valueOf(DEFAULT_COMMAND_TIMEOUT_SECONDS))) * 1000L);
+        // Handle delete flag
+        if (args.length > 0 && "delete".equalsIgnoreCase(args[0])) {
+            deleteServices(workingDir, unitDir, isRoot, commands);
+            return;
+        }
+        // Handle churn flag: offline replay of recorded ticker24H snapshots, no credentials needed
+        if (args.length > 1 && "churn".equalsIgnoreCase(args[0])) {
+            // Churn is measured for the first configured quote asset
+            String quote = quotas.quotes().get(0);
+            ChurnReplay.run(new File(args[1]), quote, quotas.quota(quote), stabilizersFrom(props, quotas).get(quote), scoring);
+            return;
+        }
+        // Handle history flag: summarize the recorded ranking snapshots, no credentials needed
+        if (args.length > 0 && "history".equalsIgnoreCase(args[0])) {
+            long sinceMillis = args.length > 2 && "--since".equals(args[1]) ? LogIndexer.parseDuration(args[2]) : Long.MAX_VALUE / 2;
+            RankingHistory.report(Paths.get(workingDir, RankingHistory.DIR), sinceMillis, System.out);
+            return;
+        }
+        // Handle logs flag: print a bot's recent output via the per-minute log index, no credentials needed
+        if (args.length > 1 && "logs".equalsIgnoreCase(args[0])) {
+            long sinceMillis = args.length > 3 && "--since".equals(args[2]) ? LogIndexer.parseDuration(args[3]) : 10 * 60_000L;
+            LogIndexer.query(Paths.get(workingDir, LOG_DIR), args[1].toUpperCase(), sinceMillis, System.out);
+            return;
+        }
+        // Market data comes from Binance, or from a recording for offline runs; either can be recorded in turn
+        MarketDataSource source;
+        long cacheTtlMinutes = Long.parseLong(props.getProperty("exchangeinfo.cache.ttl.minutes", String.valueOf(DEFAULT_CACHE_TTL_MINUTES)));
+        String sourceType = props.getProperty("market.source", "http");
+        if ("replay".equalsIgnoreCase(sourceType)) {
+            String replayDir = props.getProperty("market.replay.dir");
+            if (replayDir == null || replayDir.isBlank()) {
+                throw new IllegalStateException("market.source=replay requires market.replay.dir in config.properties");
+            }
+            source = new ReplayMarketDataSource(Paths.get(replayDir),
+                    Double.parseDouble(props.getProperty("market.replay.speed", "0")),
+                    Boolean.parseBoolean(props.getProperty("market.replay.loop", "false")));
+            // Replayed exchangeInfo must come from the recording, never from a cache written by live runs
+            cacheTtlMinutes = 0;
+        } else {
+            // Keep orchestration to a fraction of the per-IP weight limit the bots on this host share
+            RateBudget budget = new RateBudget(Integer.parseInt(props.getProperty("ratelimit.weight.per.minute", String.valueOf(DEFAULT_WEIGHT_LIMIT))),
+                    Double.parseDouble(props.getProperty("ratelimit.max.fraction", "0.5")));
+            if ("binance".equalsIgnoreCase(sourceType)) {
+                String apiKey = props.getProperty("api.key");
+                String secretKey = props.getProperty("api.secret");
+                if (apiKey == null || secretKey == null) {
+                    throw new IllegalStateException("API credentials missing in config.properties");
+                }
+                logger.info("Loaded API credentials from config.properties");
+                SpotClient client = new SpotClientImpl(apiKey, secretKey);
+                source = new BinanceMarketDataSource(client, budget);
+            } else {
+                // Discovery only needs public endpoints: no credentials or connector client required
+                source = new HttpMarketDataSource(props.getProperty("market.http.url", DEFAULT_MARKET_URL), budget);
+            }
+        }
+        String recordDir = props.getProperty("market.record.dir");
+        if (recordDir != null && !recordDir.isBlank()) {
+            source = new RecordingMarketDataSource(source, Paths.get(recordDir));
+            logger.info("Recording market data responses to " + recordDir);
         }
+        // Active pairs come from the exchangeInfo cache when warm; a stale cache is served and refreshed in the background
+        ExchangeInfoCache cache = new ExchangeInfoCache(Paths.get(workingDir, ExchangeInfoCache.FILE_NAME),
+                cacheTtlMinutes * 60_000L, quotas.quotes(), TRADING_STATUS);
+        MarketDataSource marketData = source;
+        // Every ranked snapshot is appended to the binary history, except replays (their snapshots are already recorded)
+        RankingHistory history = "replay".equalsIgnoreCase(sourceType) ? null : openHistory(props, workingDir);
         // Working directory and JAR path
         String jarPath = workingDir + "/" + JAR_NAME;
-        // Create working directory if not exists
-        File dir = new File(workingDir);
-        if (!dir.exists()) {
-            if (dir.mkdirs()) {
-                logger.info("Created working directory: " + workingDir);
-            } else {
-                throw new IOException("Failed to create working directory: " + workingDir);
+        // Handle daemon flag: keep re-ranking and only touch services whose membership changed
+        if (args.length > 0 && "daemon".equalsIgnoreCase(args[0])) {
+            if (history != null) {
+                // The daemon only ends on a signal, so the history is closed (header and windows forced, lock released) on JVM exit
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        history.close();
+                    } catch (IOException e) {
+                        logger.warning("Could not close ranking history: " + e.getMessage());
+                    }
+                }, "history-close"));
+            }
+            if (!isRoot) {
+                logger.severe("Daemon mode manages systemd units and must run as root (use sudo).");
+                return;
             }
+            long intervalMinutes = args.length > 1 ? Long.parseLong(args[1])
+                    : Long.parseLong(props.getProperty("daemon.interval.minutes", String.valueOf(DEFAULT_DAEMON_INTERVAL_MINUTES)));
+            ensureWorkingDir(workingDir);
+            // Index new log output every few seconds and rotate/gzip per-bot logs so their size stays bounded;
+            // both run on one thread so a file is never indexed while it is being truncated
+            LogIndexer indexer = new LogIndexer(Paths.get(workingDir, LOG_DIR));
+            LogRotator rotator = new LogRotator(Paths.get(workingDir, LOG_DIR),
+                    Long.parseLong(props.getProperty("logs.rotate.max.mb", "100")) * 1024 * 1024,
+                    Long.parseLong(props.getProperty("logs.rotate.max.age.hours", "24")) * 3_600_000L,
+                    Integer.parseInt(props.getProperty("logs.rotate.keep", "7")), indexer);
+            ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "log-maintenance");
+                t.setDaemon(true);
+                return t;
+            });
+            maintenance.scheduleWithFixedDelay(indexer, 0,
+                    Long.parseLong(props.getProperty("logs.index.interval.seconds", String.valueOf(DEFAULT_LOG_INDEX_INTERVAL_SECONDS))), TimeUnit.SECONDS);
+            maintenance.scheduleWithFixedDelay(rotator, 1, 1, TimeUnit.MINUTES);
+            Map<String, RankingStabilizer> stabilizers = stabilizersFrom(props, quotas);
+            UnitFileWriter unitWriter = new UnitFileWriter(Paths.get(unitDir));
+            if (!"live".equalsIgnoreCase(props.getProperty("ranking.source", "rest"))) {
+                new ReconcileDaemon(() -> discoverTopSymbols(cache, marketData, quotas, scoring, stabilizers, history),
+                        workingDir, jarPath, userName, layout, unitWriter, commands, intervalMinutes * 60_000L, intervalMinutes * 60_000L).run();
+                return;
+            }
+            // Live ranking: volumes come from the mini-ticker stream; ticker24H is called once to seed, exchangeInfo only via the cache.
+            // Rank changes trigger a reconcile (at most every live.min.reconcile.seconds); the interval remains a fallback
+            // The mini-ticker stream only carries volumes, so live ranking is by quote volume alone
+            ScoringEngine liveScoring = scoring.isQuoteVolumeOnly() ? scoring : ScoringEngine.fromProperty(null);
+            if (liveScoring != scoring) {
+                logger.warning("ranking.score.weights=" + scoring + " is ignored with ranking.source=live; ranking by quoteVolume");
+            }
+            LiveVolumeRanking live = new LiveVolumeRanking(quotas);
+            Map<String, String> active = activeSymbols(cache, marketData, quotas);
+            live.setActiveSymbols(active);
+            live.seed(marketData.tickerVolumes(active.keySet()));
+            ReconcileDaemon daemon = new ReconcileDaemon(() -> {
+                Map<String, String> current = activeSymbols(cache, marketData, quotas);
+                live.setActiveSymbols(current);
+                return rankTopSymbols(live.snapshot(), current, quotas, liveScoring, stabilizers, history);
+            }, workingDir, jarPath, userName, layout, unitWriter, commands, intervalMinutes * 60_000L,
+                    Long.parseLong(props.getProperty("live.min.reconcile.seconds", String.valueOf(DEFAULT_LIVE_MIN_RECONCILE_SECONDS))) * 1000L);
+            live.setRankChangeListener(ranking -> daemon.requestCycle());
+            try (LiveTickerStream stream = new LiveTickerStream(props.getProperty("live.stream.url", DEFAULT_LIVE_STREAM_URL), live)) {
+                stream.connect();
+                daemon.run();
+            }
+            return;
         }
-        // Generate service files
-        for (String symbol : topSymbols) {
-            generateServiceFile(symbol, workingDir, jarPath, userName);
+        List<String> topSymbols = discoverTopSymbols(cache, marketData, quotas, scoring, null, history);
+        if (history != null) {
+            history.close();
         }
+        // Create working directory if not exists
+        ensureWorkingDir(workingDir);
         if (topSymbols.isEmpty()) {
-            logger.info("No USDC pairs found. Exiting.");
+            logger.info("No " + String.join("/", quotas.quotes()) + " pairs found. Exiting.");
+            cache.awaitRefresh(REFRESH_EXIT_TIMEOUT_MILLIS);
             return;
         }
         // Automatic installation if running as root, else manual instructions
         if (isRoot) {
             try {
-                // Copy all service files individually
-                File wd = new File(workingDir);
-                File[] serviceFiles = wd.listFiles((d, name) -> name.startsWith("tradebot_") && name.endsWith(".service"));
-                if (serviceFiles != null) {
-                    for (File file : serviceFiles) {
-                        executeCommand("cp", file.getAbsolutePath(), "/etc/systemd/system/");
-                    }
-                }
-                // Reload daemon
-                executeCommand("systemctl", "daemon-reload");
-                // Enable and start each service
-                for (String symbol : topSymbols) {
-                    String serviceName = "tradebot_" + symbol.toLowerCase() + ".service";
-                    executeCommand("systemctl", "enable", serviceName);
-                    executeCommand("systemctl", "start", serviceName);
+                // Render units straight into the unit directory, rewriting only those whose content hash changed;
+                // reload only if something was written, enable and start every service with one systemctl call,
+                // and restart only services whose definition changed
+                UnitFileWriter writer = new UnitFileWriter(Paths.get(unitDir));
+                UnitReconciler.Plan plan = UnitReconciler.plan(writer.dir(), layout.renderUnits(topSymbols, workingDir, jarPath, userName));
+                List<String> services = layout.serviceNames(topSymbols);
+                SystemdBatch batch = new SystemdBatch(commands);
+                Set<String> kept = layout.installedServices(writer.dir());
+                kept.retainAll(services);
+                UnitReconciler.apply(plan, writer, batch, services, layout.servicesToRestart(plan, kept));
+                if (!batch.failed().isEmpty()) {
+                    logger.warning("Failed operations for: " + batch.failed());
                 }
                 logger.info("Services installed, enabled, and started automatically.");
-                logger.info("Monitor with: systemctl status tradebot_<symbol>.service (run as sudo if needed)");
-                logger.info("Logs in: " + workingDir + "/output.log");
+                logger.info("Monitor with: systemctl status " + layout.serviceName("<symbol>") + " (run as sudo if needed)");
+                logger.info("Logs in: " + workingDir + "/" + LOG_DIR + "/<SYMBOL>.log");
             } catch (Exception e) {
                 logger.severe("Failed to install/manage services: " + e.getMessage());
             }
         } else {
-            // Manual instructions if not root
+            // Manual instructions if not root: generate service files in the working directory
+            UnitFileWriter writer = new UnitFileWriter(Paths.get(workingDir));
+            UnitReconciler.apply(UnitReconciler.plan(writer.dir(), layout.renderUnits(topSymbols, workingDir, jarPath, userName)),
+                    writer, null, List.of(), List.of());
             logger.warning("Not running as root. Services generated but not installed. Run this program with sudo for automatic installation.");
             logger.info("To install and run manually:\n" +
-                    "sudo cp " + workingDir + "/tradebot_*.service /etc/systemd/system/\n" +
+                    "sudo cp " + workingDir + "/tradebot*.service " + unitDir + "\n" +
                     "sudo systemctl daemon-reload\n" +
-                    "Then, for each service (or use a loop):\n" +
-                    "sudo systemctl enable tradebot_<symbol>.service\n" +
-                    "sudo systemctl start tradebot_<symbol>.service\n" +
-                    "Monitor with: sudo systemctl status tradebot_<symbol>.service\n" +
-                    "Logs in: " + workingDir + "/output.log");
+                    "Then enable and start all services in one call:\n" +
+                    "sudo systemctl enable --now " + String.join(" ", layout.serviceNames(topSymbols)) + "\n" +
+                    "Monitor with: sudo systemctl status " + layout.serviceName("<symbol>") + "\n" +
+                    "Logs in: " + workingDir + "/" + LOG_DIR + "/<SYMBOL>.log");
         }
+        cache.awaitRefresh(REFRESH_EXIT_TIMEOUT_MILLIS);
     }
-    private static void deleteServices(String workingDir, boolean isRoot) {
+    /**
+     * Fetches market data (exchangeInfo from cache when possible) and returns the merged top symbols of every configured
+     * quote asset by score (24h quote volume unless other metrics are weighted). With stabilizers each quote's selection is smoothed across calls instead of taken
+     * from the raw snapshot. With a history the snapshot and resulting plan are appended to it.
+     */
+    static List<String> discoverTopSymbols(ExchangeInfoCache cache, MarketDataSource source, QuoteQuotas quotas,
+            ScoringEngine scoring, Map<String, RankingStabilizer> stabilizers, RankingHistory history) throws Exception {
+        ExchangeInfoCache.Snapshot cached = cache.load();
+        Map<String, String> activeSymbols;
+        TickerVolumes activePairs;
+        if (cached == null) {
+            // Cold start: fetch exchange info and all 24hr tickers together (concurrently for live sources)
+            MarketSnapshot snapshot = source.snapshot();
+            activeSymbols = ExchangeInfoStreamParser.parseActiveSymbolQuotes(snapshot.exchangeInfoJson(), quotas.quotes(), TRADING_STATUS);
+            cache.store(activeSymbols, null);
+            // Stream out only the ranking fields of the active pairs' tickers, all quote assets in one pass
+            activePairs = TickerStreamParser.parse(snapshot.tickersJson(), activeSymbols.keySet());
+        } else {
+            activeSymbols = ExchangeInfoCache.symbols(cached);
+            if (cache.isFresh(cached)) {
+                logger.info("Using cached exchangeInfo (" + activeSymbols.size() + " active " + String.join("/", quotas.quotes()) + " symbols)");
+            } else {
+                logger.info("Cached exchangeInfo is stale; serving it and refreshing in the background");
+                cache.refreshInBackground(source::exchangeInfo, cached);
+            }
+            // The active set is known up front, so sources that can stream parse the ticker body as it arrives
+            long start = System.nanoTime();
+            activePairs = source.tickerVolumes(activeSymbols.keySet());
+            logger.info(String.format("Fetched and parsed ticker24H in %d ms", (System.nanoTime() - start) / 1_000_000));
+        }
+        return rankTopSymbols(activePairs, activeSymbols, quotas, scoring, stabilizers, history);
+    }
+    /**
+     * Active symbols of the configured quote assets (symbol to quote) from the exchangeInfo cache,
+     * fetching synchronously only when there is no cache yet.
+     */
+    private static Map<String, String> activeSymbols(ExchangeInfoCache cache, MarketDataSource source, QuoteQuotas quotas) throws Exception {
+        ExchangeInfoCache.Snapshot cached = cache.load();
+        if (cached == null) {
+            Map<String, String> active = ExchangeInfoStreamParser.parseActiveSymbolQuotes(source.exchangeInfo(), quotas.quotes(), TRADING_STATUS);
+            cache.store(active, null);
+            return active;
+        }
+        if (!cache.isFresh(cached)) {
+            cache.refreshInBackground(source::exchangeInfo, cached);
+        }
+        return ExchangeInfoCache.symbols(cached);
+    }
+    /**
+     * Top symbols of each quote asset within its quota by score (smoothed when stabilizers are given), merged into one plan.
+     */
+    private static List<String> rankTopSymbols(TickerVolumes activePairs, Map<String, String> activeSymbols, QuoteQuotas quotas,
+            ScoringEngine scoring, Map<String, RankingStabilizer> stabilizers, RankingHistory history) {
+        long rankedAt = System.currentTimeMillis();
+        Map<String, TickerVolumes> byQuote = quotas.split(activePairs, activeSymbols);
+        Map<String, List<String>> rankedByQuote = new LinkedHashMap<>();
+        for (String quote : quotas.quotes()) {
+            TickerVolumes pairs = byQuote.get(quote);
+            // Scores are standardized within each quote asset; volumes in different quotes are not comparable
+            double[] scores = scoring.score(pairs);
+            List<String> topSymbols;
+            if (stabilizers != null) {
+                // Smoothed, banded selection: only swap symbols that clearly left the top N
+                RankingStabilizer stabilizer = stabilizers.get(quote);
+                topSymbols = stabilizer.update(pairs, scores);
+                for (int i = 0; i < topSymbols.size(); i++) {
+                    logger.info(String.format("Top %d: %s with smoothed %s %.2f %s", i + 1, topSymbols.get(i), scoring.label(), stabilizer.score(topSymbols.get(i)), quote));
+                }
+                logger.info("Ranking churn this cycle for " + quote + ": " + stabilizer.lastChurn() + " symbol(s) entered");
+            } else {
+                // Select the top N by score (descending) with a bounded heap over the primitive score column
+                int[] ranking = new TopNSelector(quotas.quota(quote)).select(scores, pairs.size());
+                topSymbols = new ArrayList<>(ranking.length);
+                for (int i = 0; i < ranking.length; i++) {
+                    String symbol = pairs.symbol(ranking[i]);
+                    topSymbols.add(symbol);
+                    logger.info(String.format("Top %d: %s with %s %.2f %s", i + 1, symbol, scoring.label(), scores[ranking[i]], quote));
+                }
+            }
+            rankedByQuote.put(quote, topSymbols);
+        }
+        List<String> plan = quotas.merge(rankedByQuote);
+        if (stabilizers != null) {
+            // Symbols the global cap dropped have no bot, so they must not stay incumbents
+            Set<String> deployed = new HashSet<>(plan);
+            for (RankingStabilizer stabilizer : stabilizers.values()) {
+                stabilizer.retain(deployed);
+            }
+        }
+        if (quotas.quotes().size() > 1) {
+            logger.info("Deployment plan: " + plan.size() + " bot(s) across " + quotas);
+        }
+        if (history != null) {
+            try {
+                history.append(rankedAt, activePairs, plan);
+            } catch (IOException e) {
+                // History is for offline analysis; never let it fail a ranking
+                logger.warning("Could not append to ranking history: " + e.getMessage());
+            }
+        }
+        return plan;
+    }
+    /**
+     * Opens workingDir/history for appending, or returns null when disabled (history.enabled=false) or unavailable,
+     * e.g. while a running daemon holds it.
+     */
+    private static RankingHistory openHistory(Properties props, String workingDir) {
+        if (!Boolean.parseBoolean(props.getProperty("history.enabled", "true"))) {
+            return null;
+        }
+        try {
+            return new RankingHistory(Paths.get(workingDir, RankingHistory.DIR));
+        } catch (IOException e) {
+            logger.warning("Ranking history disabled for this run: " + e.getMessage());
+            return null;
+        }
+    }
+    /**
+     * One stabilizer per quote asset. The configured rank bands are for a quota of TOP_N and scale with each quote's quota.
+     */
+    private static Map<String, RankingStabilizer> stabilizersFrom(Properties props, QuoteQuotas quotas) {
+        int enterRank = Integer.parseInt(props.getProperty("ranking.enter.rank", String.valueOf(TOP_N)));
+        int exitRank = Integer.parseInt(props.getProperty("ranking.exit.rank", String.valueOf(TOP_N + TOP_N / 4)));
+        double alpha = Double.parseDouble(props.getProperty("ranking.ewma.alpha", "0.3"));
+        int window = Integer.parseInt(props.getProperty("ranking.window", "12"));
+        Map<String, RankingStabilizer> stabilizers = new LinkedHashMap<>();
+        for (String quote : quotas.quotes()) {
+            stabilizers.put(quote, RankingStabilizer.forQuota(quotas.quota(quote), TOP_N, enterRank, exitRank, alpha, window));
+        }
+        return stabilizers;
+    }
+    private static void ensureWorkingDir(String workingDir) throws IOException {
+        File dir = new File(workingDir);
+        if (!dir.exists()) {
+            if (dir.mkdirs()) {
+                logger.info("Created working directory: " + workingDir);
+            } else {
+                throw new IOException("Failed to create working directory: " + workingDir);
+            }
+        }
+        // systemd creates the per-bot log files on start, but not their directory
+        File logDir = new File(dir, LOG_DIR);
+        if (!logDir.exists() && !logDir.mkdirs()) {
+            throw new IOException("Failed to create log directory: " + logDir);
+        }
+    }
+    private static void deleteServices(String workingDir, String unitDir, boolean isRoot, CommandExecutor commands) {
         if (isRoot) {
-            File systemDir = new File("/etc/systemd/system/");
+            File systemDir = new File(unitDir);
             if (!systemDir.exists()) {
                 logger.info("Systemd system directory does not exist. Nothing to delete.");
             } else {
-                File[] systemFiles = systemDir.listFiles((d, name) -> name.startsWith("tradebot_") && name.endsWith(".service"));
-                if (systemFiles == null || systemFiles.length == 0) {
-                    logger.info("No service files found in /etc/systemd/system/ to delete.");
+                // Tear down both layouts regardless of the configured one, so switching layouts never leaves bots behind
+                Path unitPath = systemDir.toPath();
+                Set<String> perSymbolServices = UnitLayout.PER_SYMBOL.installedServices(unitPath);
+                Set<String> instances = UnitLayout.TEMPLATE.installedServices(unitPath);
+                File template = new File(systemDir, UnitLayout.TEMPLATE_UNIT);
+                if (perSymbolServices.isEmpty() && instances.isEmpty() && !template.exists()) {
+                    logger.info("No service files found in " + unitDir + " to delete.");
                 } else {
-                    for (File file : systemFiles) {
-                        String serviceName = file.getName();
-                        try {
-                            executeCommand("systemctl", "stop", serviceName);
-                        } catch (Exception e) {
-                            logger.warning("Failed to stop " + serviceName + ": " + e.getMessage());
-                        }
-                        try {
-                            executeCommand("systemctl", "disable", serviceName);
-                        } catch (Exception e) {
-                            logger.warning("Failed to disable " + serviceName + ": " + e.getMessage());
-                        }
-                        try {
-                            executeCommand("rm", file.getAbsolutePath());
-                        } catch (Exception e) {
-                            logger.warning("Failed to remove " + serviceName + ": " + e.getMessage());
-                        }
-                    }
-                    try {
-                        executeCommand("systemctl", "daemon-reload");
-                    } catch (Exception e) {
-                        logger.warning("Failed to reload systemd daemon: " + e.getMessage());
+                    SystemdBatch batch = new SystemdBatch(commands);
+                    UnitLayout.PER_SYMBOL.remove(perSymbolServices, unitPath, batch);
+                    if (template.exists() || !instances.isEmpty()) {
+                        UnitLayout.TEMPLATE.remove(instances, unitPath, batch);
+                        // Instances started without being enabled have no wants symlink; stop any loaded ones by pattern
+                        batch.stop(List.of("tradebot@*.service"));
+                        batch.remove(List.of(template));
                     }
+                    batch.daemonReload();
                     logger.info("System service cleanup completed.");
                 }
             }
@@ -199,7 +454,8 @@ public class BotOrchestrator {
             logger.info("Working directory " + workingDir + " does not exist. No local files to delete.");
             return;
         }
-        File[] localFiles = localDir.listFiles((d, name) -> name.startsWith("tradebot_") && name.endsWith(".service"));
+        File[] localFiles = localDir.listFiles((d, name) -> (name.startsWith("tradebot_") && name.endsWith(".service"))
+                || name.equals(UnitLayout.TEMPLATE_UNIT));
         if (localFiles == null || localFiles.length == 0) {
             logger.info("No local service files found to delete.");
         } else {
@@ -211,10 +467,9 @@ public class BotOrchestrator {
             logger.info("Local service files deleted.");
         }
     }
-    private static void generateServiceFile(String symbol, String workingDir, String jarPath, String userName) throws IOException {
-        String serviceName = "tradebot_" + symbol.toLowerCase() + ".service";
-        String filePath = workingDir + "/" + serviceName;
-        String logPath = workingDir + "/output.log";
+    static String renderServiceFile(String symbol, String workingDir, String jarPath, String userName) {
+        // One log per bot (for the template layout symbol is "%i", so systemd expands it per instance)
+        String logPath = workingDir + "/" + LOG_DIR + "/" + symbol + ".log";
         String content = "[Unit]\n" +
                 "Description=Trading Bot for " + symbol + "\n" +
                 "After=network.target\n" +
@@ -230,24 +485,6 @@ public class BotOrchestrator {
                 "\n" +
                 "[Install]\n" +
                 "WantedBy=multi-user.target\n";
-        try (FileWriter writer = new FileWriter(filePath)) {
-            writer.write(content);
-        }
-        logger.info("Generated service file: " + filePath);
-    }
-    private static void executeCommand(String... command) throws IOException, InterruptedException {
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.redirectErrorStream(true);
-        Process p = pb.start();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                logger.info(line);
-            }
-        }
-        int exit = p.waitFor();
-        if (exit != 0) {
-            throw new IOException("Command '" + String.join(" ", command) + "' failed with exit code " + exit);
-        }
+        return content;
     }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.example;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+/**
+ * Replays recorded ticker24H snapshots (one JSON file per refresh) through the plain top-N ranking and through
+ * {@link RankingStabilizer}, both by the configured {@link ScoringEngine} score, and reports how many bot swaps per day each policy would have caused.
+ * Snapshot time is the first run of 10+ digits in the file name (epoch millis), falling back to the file's mtime.
+ */
+final class ChurnReplay {
+    private static final Logger logger = Logger.getLogger(ChurnReplay.class.getName());
+    private static final Pattern EPOCH_MILLIS = Pattern.compile("\\d{10,}");
+    private ChurnReplay() {
+    }
+    static void run(File dir, String quoteAsset, int topN, RankingStabilizer stabilizer, ScoringEngine scoring) throws IOException {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
+        if (files == null || files.length < 2) {
+            throw new IOException("Need at least two recorded ticker24H snapshots (*.json) in " + dir);
+        }
+        long[] times = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            times[i] = snapshotTime(files[i]);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(times[a], times[b]));
+        TopNSelector selector = new TopNSelector(topN);
+        Set<String> rawSelection = new HashSet<>();
+        long rawChurn = 0;
+        long smoothedChurn = 0;
+        long parseNanos = 0;
+        long rankNanos = 0;
+        for (int n = 0; n < order.length; n++) {
+            File file = files[order[n]];
+            long t0 = System.nanoTime();
+            TickerVolumes tickers = TickerStreamParser.parse(Files.readString(file.toPath()), s -> s.endsWith(quoteAsset));
+            long t1 = System.nanoTime();
+            double[] scores = scoring.score(tickers);
+            Set<String> raw = new HashSet<>();
+            for (int row : selector.select(scores, tickers.size())) {
+                raw.add(tickers.symbol(row));
+            }
+            stabilizer.update(tickers, scores);
+            rankNanos += System.nanoTime() - t1;
+            parseNanos += t1 - t0;
+            // The first snapshot only seeds both selections; churn is counted from the second one on
+            if (n > 0) {
+                rawChurn += entered(rawSelection, raw);
+                smoothedChurn += stabilizer.lastChurn();
+            }
+            rawSelection = raw;
+        }
+        double days = Math.max(1e-9, (times[order[order.length - 1]] - times[order[0]]) / 86_400_000.0);
+        logger.info(String.format("Replayed %d snapshots over %.2f days (parse %d ms, rank %d ms)",
+                order.length, days, parseNanos / 1_000_000, rankNanos / 1_000_000));
+        logger.info(String.format("Plain top-%d: %d swaps (%.1f/day); stabilized: %d swaps (%.1f/day)",
+                topN, rawChurn, rawChurn / days, smoothedChurn, smoothedChurn / days));
+    }
+    private static int entered(Set<String> before, Set<String> after) {
+        int entered = 0;
+        for (String symbol : after) {
+            if (!before.contains(symbol)) {
+                entered++;
+            }
+        }
+        return entered;
+    }
+    private static long snapshotTime(File file) {
+        Matcher m = EPOCH_MILLIS.matcher(file.getName());
+        if (m.find()) {
+            try {
+                return Long.parseLong(m.group());
+            } catch (NumberFormatException ignored) {
+                // too long for a long; fall through to mtime
+            }
+        }
+        return file.lastModified();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+/**
+ * Runs external commands (systemctl, rm...) with bounded parallelism on top of {@link ProcessRunner}.
+ * A semaphore caps how many child processes are alive at once; each command gets the runner's deadline
+ * with kill escalation. {@link #runAll} returns one result per command, in order, so callers can aggregate
+ * successes and failures instead of aborting on the first error. Command output is kept as a bounded tail:
+ * it is logged at FINE on success and only surfaces at WARNING through the caller when a command fails.
+ */
+final class CommandExecutor {
+    private static final Logger logger = Logger.getLogger(CommandExecutor.class.getName());
+    private static final long KILL_GRACE_MILLIS = 2_000;
+    private static final int OUTPUT_TAIL_LINES = 20;
+    private final Semaphore permits;
+    private final ProcessRunner runner;
+    CommandExecutor(int concurrency, long timeoutMillis) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Command concurrency must be >= 1 but was " + concurrency);
+        }
+        this.permits = new Semaphore(concurrency);
+        this.runner = new ProcessRunner(timeoutMillis, KILL_GRACE_MILLIS, OUTPUT_TAIL_LINES);
+    }
+    ProcessRunner.Result run(List<String> command) {
+        return runAll(List.of(command)).get(0);
+    }
+    /**
+     * Runs all commands, at most the configured number at a time, and waits for every one to finish.
+     */
+    List<ProcessRunner.Result> runAll(List<List<String>> commands) {
+        List<CompletableFuture<ProcessRunner.Result>> futures = new ArrayList<>(commands.size());
+        for (List<String> command : commands) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.add(CompletableFuture.completedFuture(new ProcessRunner.Result(command, -1, 0, List.of(), 0, "interrupted")));
+                continue;
+            }
+            futures.add(runner.start(command).whenComplete((result, error) -> permits.release()));
+        }
+        List<ProcessRunner.Result> results = new ArrayList<>(commands.size());
+        for (int i = 0; i < futures.size(); i++) {
+            ProcessRunner.Result result;
+            try {
+                result = futures.get(i).join();
+            } catch (CompletionException e) {
+                result = new ProcessRunner.Result(commands.get(i), -1, 0, List.of(), 0, String.valueOf(e.getCause()));
+            }
+            if (result.ok() && logger.isLoggable(Level.FINE)) {
+                logger.fine(String.join(" ", result.command()) + " (" + result.millis() + " ms): " + result.outputTail());
+            }
+            results.add(result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.logging.Logger;
+/**
+ * On-disk cache of the active symbols derived from exchangeInfo, stored as a small JSON snapshot
+ * (timestamp, filter, content hash and the sorted symbols of each quote asset) in the working directory.
+ * Snapshots younger than the TTL are served as-is; stale snapshots are still served but trigger a background
+ * refresh, whose hash is compared with the cached one to log symbol-set changes.
+ */
+final class ExchangeInfoCache {
+    private static final Logger logger = Logger.getLogger(ExchangeInfoCache.class.getName());
+    static final String FILE_NAME = "exchange_info_cache.json";
+    private final Path file;
+    private final long ttlMillis;
+    private final List<String> quoteAssets;
+    // Filter key stored with the snapshot: the configured quote assets in order
+    private final String quoteFilter;
+    private final String status;
+    private Thread refresher;
+    record Snapshot(long fetchedAt, String quoteAssets, String status, String hash, Map<String, List<String>> symbolsByQuote) {
+    }
+    ExchangeInfoCache(Path file, long ttlMillis, List<String> quoteAssets, String status) {
+        this.file = file;
+        this.ttlMillis = ttlMillis;
+        this.quoteAssets = List.copyOf(quoteAssets);
+        this.quoteFilter = String.join(",", quoteAssets);
+        this.status = status;
+    }
+    /**
+     * Returns the cached snapshot, or null if caching is disabled, the file is missing or unreadable, or it was built for another filter.
+     */
+    Snapshot load() {
+        if (ttlMillis <= 0 || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            Snapshot snapshot = MarketJson.MAPPER.readValue(file.toFile(), Snapshot.class);
+            // Snapshots from older versions carry no per-quote symbols and are simply refetched
+            if (snapshot.symbolsByQuote() == null || !quoteFilter.equals(snapshot.quoteAssets()) || !status.equals(snapshot.status())) {
+                return null;
+            }
+            return snapshot;
+        } catch (IOException e) {
+            logger.warning("Ignoring unreadable exchangeInfo cache " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+    boolean isFresh(Snapshot snapshot) {
+        return System.currentTimeMillis() - snapshot.fetchedAt() < ttlMillis;
+    }
+    /**
+     * The cached active symbols, each mapped to its quote asset.
+     */
+    static Map<String, String> symbols(Snapshot snapshot) {
+        Map<String, String> symbols = new HashMap<>();
+        for (Map.Entry<String, List<String>> quote : snapshot.symbolsByQuote().entrySet()) {
+            String quoteAsset = quote.getKey().intern();
+            for (String symbol : quote.getValue()) {
+                symbols.put(symbol.intern(), quoteAsset);
+            }
+        }
+        return symbols;
+    }
+    /**
+     * Writes a new snapshot for the given symbols via a temp file and atomic rename, logging whether the set changed.
+     */
+    Snapshot store(Map<String, String> activeSymbols, Snapshot previous) throws IOException {
+        Map<String, List<String>> byQuote = new TreeMap<>();
+        for (Map.Entry<String, String> symbol : activeSymbols.entrySet()) {
+            byQuote.computeIfAbsent(symbol.getValue(), q -> new ArrayList<>()).add(symbol.getKey());
+        }
+        for (List<String> symbols : byQuote.values()) {
+            Collections.sort(symbols);
+        }
+        Snapshot snapshot = new Snapshot(System.currentTimeMillis(), quoteFilter, status, hash(byQuote), byQuote);
+        if (previous != null && !previous.hash().equals(snapshot.hash())) {
+            Set<String> added = new HashSet<>(activeSymbols.keySet());
+            Set<String> previousSymbols = symbols(previous).keySet();
+            added.removeAll(previousSymbols);
+            Set<String> removed = new HashSet<>(previousSymbols);
+            removed.removeAll(activeSymbols.keySet());
+            logger.info("Active " + quoteFilter + " symbol set changed: added " + added + ", removed " + removed);
+        }
+        if (ttlMillis <= 0) {
+            return snapshot;
+        }
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        MarketJson.MAPPER.writeValue(tmp.toFile(), snapshot);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return snapshot;
+    }
+    /**
+     * Refetches exchangeInfo on a background thread and rewrites the cache. The thread is a daemon so a hung call
+     * can never keep the JVM alive; a one-shot run waits for it with {@link #awaitRefresh} before exiting.
+     */
+    synchronized Thread refreshInBackground(Callable<String> exchangeInfoCall, Snapshot previous) {
+        // Long-running callers re-check staleness every cycle; never stack a second refresh on a slow one
+        if (refresher != null && refresher.isAlive()) {
+            return refresher;
+        }
+        refresher = new Thread(() -> {
+            try {
+                long start = System.nanoTime();
+                Map<String, String> symbols = ExchangeInfoStreamParser.parseActiveSymbolQuotes(exchangeInfoCall.call(), quoteAssets, status);
+                store(symbols, previous);
+                logger.info(String.format("Refreshed exchangeInfo cache in %d ms (%d active symbols)",
+                        (System.nanoTime() - start) / 1_000_000, symbols.size()));
+            } catch (Exception e) {
+                logger.warning("Background exchangeInfo refresh failed: " + e.getMessage());
+            }
+        }, "exchange-info-refresh");
+        refresher.setDaemon(true);
+        refresher.start();
+        return refresher;
+    }
+    /**
+     * Waits up to timeoutMillis for a background refresh in progress, so its snapshot reaches disk before exit.
+     */
+    void awaitRefresh(long timeoutMillis) throws InterruptedException {
+        Thread running;
+        synchronized (this) {
+            running = refresher;
+        }
+        if (running != null) {
+            running.join(timeoutMillis);
+            if (running.isAlive()) {
+                logger.warning("exchangeInfo refresh still running after " + timeoutMillis + " ms; exiting without it");
+            }
+        }
+    }
+    private static String hash(Map<String, List<String>> sortedSymbolsByQuote) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Map.Entry<String, List<String>> quote : sortedSymbolsByQuote.entrySet()) {
+                for (String symbol : quote.getValue()) {
+                    digest.update(quote.getKey().getBytes(StandardCharsets.US_ASCII));
+                    digest.update((byte) ':');
+                    digest.update(symbol.getBytes(StandardCharsets.US_ASCII));
+                    digest.update((byte) '\n');
+                }
+            }
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
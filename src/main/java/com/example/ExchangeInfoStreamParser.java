@@ -0,0 +1,88 @@
+package com.example;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+/**
+ * Streaming reader for the exchangeInfo response.
+ * Only symbol, quoteAsset and status are read from each entry of the top-level "symbols" array;
+ * filters, orderTypes, permissionSets, rateLimits and everything else are skipped with skipChildren().
+ * Matching symbols are interned so the same String instances are shared with the ticker parser lookups.
+ * Several quote assets can be filtered in the same pass; each active symbol is then mapped to its quote asset.
+ */
+final class ExchangeInfoStreamParser {
+    private ExchangeInfoStreamParser() {
+    }
+    static Set<String> parseActiveSymbols(String json, String quoteAsset, String status) throws IOException {
+        return parseActiveSymbolQuotes(json, List.of(quoteAsset), status).keySet();
+    }
+    static Set<String> parseActiveSymbols(InputStream in, String quoteAsset, String status) throws IOException {
+        try (JsonParser parser = MarketJson.factory().createParser(in)) {
+            return parseActiveSymbolQuotes(parser, List.of(quoteAsset), status).keySet();
+        }
+    }
+    /**
+     * Active symbols quoted in any of the given assets, mapped to their (interned) quote asset.
+     */
+    static Map<String, String> parseActiveSymbolQuotes(String json, Collection<String> quoteAssets, String status) throws IOException {
+        try (JsonParser parser = MarketJson.factory().createParser(json)) {
+            return parseActiveSymbolQuotes(parser, quoteAssets, status);
+        }
+    }
+    static Map<String, String> parseActiveSymbolQuotes(JsonParser parser, Collection<String> quoteAssets, String status) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected exchangeInfo object but found " + parser.currentToken());
+        }
+        Map<String, String> activeSymbols = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("symbols".equals(field) && value == JsonToken.START_ARRAY) {
+                readSymbols(parser, Set.copyOf(quoteAssets), status, activeSymbols);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return activeSymbols;
+    }
+    private static void readSymbols(JsonParser parser, Set<String> quoteAssets, String status, Map<String, String> out) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IOException("Unexpected end of exchangeInfo payload");
+            }
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            String symbol = null;
+            String quote = null;
+            boolean statusMatches = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "symbol":
+                        symbol = parser.getText();
+                        break;
+                    case "quoteAsset":
+                        quote = parser.getText();
+                        break;
+                    case "status":
+                        statusMatches = status.equals(parser.getText());
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            if (symbol != null && statusMatches && quote != null && quoteAssets.contains(quote)) {
+                out.put(symbol.intern(), quote.intern());
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+/**
+ * Public market data over the JDK HttpClient: no credentials, no request signing, no connector HTTP stack.
+ * One client is reused for every call, so requests share a single HTTP/2 connection where the server offers it
+ * (keep-alive HTTP/1.1 otherwise). Responses are requested gzip-compressed and inflated while they stream in;
+ * {@link #tickerVolumes(Set)} parses the inflating stream directly, so the ticker body is never held in memory.
+ * Calls are metered by the shared {@link RateBudget} using the X-MBX-USED-WEIGHT-1M and Retry-After headers.
+ */
+final class HttpMarketDataSource implements MarketDataSource {
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int INFLATE_BUFFER = 64 * 1024;
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .build();
+    private final String baseUrl;
+    private final RateBudget budget;
+    HttpMarketDataSource(String baseUrl, RateBudget budget) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.budget = budget;
+    }
+    @Override
+    public String exchangeInfo() throws IOException, InterruptedException {
+        try (InputStream body = get("/api/v3/exchangeInfo", BinanceMarketDataSource.EXCHANGE_INFO_WEIGHT)) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    @Override
+    public String ticker24H() throws IOException, InterruptedException {
+        try (InputStream body = get("/api/v3/ticker/24hr", BinanceMarketDataSource.TICKER_24H_ALL_WEIGHT)) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    @Override
+    public TickerVolumes tickerVolumes(Set<String> wantedSymbols) throws IOException, InterruptedException {
+        try (InputStream body = get("/api/v3/ticker/24hr", BinanceMarketDataSource.TICKER_24H_ALL_WEIGHT)) {
+            return TickerStreamParser.parse(body, wantedSymbols);
+        }
+    }
+    /**
+     * Sends the request and returns the (inflated) body stream of a 200 response; the caller closes it.
+     */
+    private InputStream get(String path, int weight) throws IOException, InterruptedException {
+        budget.acquire(path, weight);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        response.headers().firstValue("x-mbx-used-weight-1m").ifPresent(used -> budget.onUsedWeight(Integer.parseInt(used.trim()), weight));
+        InputStream body = response.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent()
+                ? new GZIPInputStream(response.body(), INFLATE_BUFFER)
+                : response.body();
+        int status = response.statusCode();
+        if (status == 200) {
+            budget.onSuccess();
+            return body;
+        }
+        String error;
+        try (body) {
+            error = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        if (status == 429 || status == 418) {
+            budget.onRateLimited(status, response.headers().firstValueAsLong("Retry-After").orElse(-1));
+        }
+        throw new IOException("GET " + path + " failed with HTTP " + status + ": " + error);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example;
+import com.binance.connector.client.impl.WebSocketStreamClientImpl;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+/**
+ * Keeps a subscription to the all-market mini-ticker stream open and feeds each message into a {@link LiveVolumeRanking}.
+ * Binance drops stream connections at least every 24 hours and on network hiccups, so a closed or failed connection is
+ * re-opened with exponential backoff (1 s doubling up to 60 s, reset once messages flow again). A server close frame is
+ * answered immediately so the connection actually closes and the reconnect starts.
+ * The base URL is configurable so a local WebSocket stand-in can replace stream.binance.com.
+ */
+final class LiveTickerStream implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(LiveTickerStream.class.getName());
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+    private final WebSocketStreamClientImpl client;
+    private final LiveVolumeRanking ranking;
+    private final ScheduledExecutorService reconnects = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ticker-stream-reconnect");
+        t.setDaemon(true);
+        return t;
+    });
+    private long backoffMillis = 1_000;
+    private int connectionId = -1;
+    private volatile boolean closed;
+    LiveTickerStream(String baseUrl, LiveVolumeRanking ranking) {
+        this.client = new WebSocketStreamClientImpl(baseUrl);
+        this.ranking = ranking;
+    }
+    synchronized void connect() {
+        if (closed) {
+            return;
+        }
+        int id = client.allMiniTickerStream(
+                response -> logger.info("Connected to all-market mini-ticker stream"),
+                message -> onMessage(message),
+                (code, reason) -> onClosing(code, reason),
+                (code, reason) -> reconnect("closed (" + code + " " + reason + ")"),
+                (error, response) -> reconnect("failed: " + error));
+        connectionId = id;
+    }
+    private void onMessage(String message) {
+        try {
+            ranking.onMessage(message);
+            synchronized (this) {
+                backoffMillis = 1_000;
+            }
+        } catch (Exception e) {
+            // One malformed frame must not drop the subscription
+            logger.warning("Ignoring unparseable mini-ticker message: " + e.getMessage());
+        }
+    }
+    /**
+     * The server sent a close frame (Binance does at least every 24 hours). okhttp reports the connection closed, which
+     * triggers the reconnect, only once this side closes too, so answer the close frame right away.
+     */
+    private synchronized void onClosing(int code, String reason) {
+        logger.fine("Mini-ticker stream closing: " + code + " " + reason);
+        release();
+    }
+    private synchronized void reconnect(String why) {
+        if (closed) {
+            return;
+        }
+        // Also drops a failed connection from the client's connection table
+        release();
+        long delay = backoffMillis;
+        backoffMillis = Math.min(MAX_BACKOFF_MILLIS, backoffMillis * 2);
+        logger.warning("Mini-ticker stream " + why + "; reconnecting in " + delay + " ms");
+        reconnects.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+    @Override
+    public synchronized void close() {
+        closed = true;
+        reconnects.shutdownNow();
+        release();
+    }
+    private void release() {
+        if (connectionId >= 0) {
+            client.closeConnection(connectionId);
+            connectionId = -1;
+        }
+    }
+}
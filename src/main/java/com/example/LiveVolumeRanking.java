@@ -0,0 +1,178 @@
+package com.example;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+/**
+ * Per-quote top-N by 24h quote volume kept current from the all-market mini-ticker stream (!miniTicker@arr).
+ * Every message updates the affected symbols' volumes in place (one row per symbol, primitive double column) and in
+ * their quote asset's {@link TopNIndex} (sized to that quote's quota), so each tick costs O(log n) instead of a full
+ * re-selection; when any index reports membership changes the per-quote rankings are handed to the listener.
+ * Symbols outside the active set are tracked but never ranked. Safe for one stream thread plus readers.
+ */
+final class LiveVolumeRanking {
+    private static final Logger logger = Logger.getLogger(LiveVolumeRanking.class.getName());
+    private final List<String> quotes;
+    private final TopNIndex[] indexes;
+    private volatile Consumer<List<String>> onRankChange = ranking -> { };
+    private final Map<String, Integer> rows = new HashMap<>();
+    private String[] symbols = new String[1024];
+    private double[] volumes = new double[1024];
+    // Position of each row's quote asset in quotes, -1 while the symbol is not active
+    private int[] rowQuotes = new int[1024];
+    private int size;
+    private Map<String, String> activeSymbols = Map.of();
+    private final List<String> entered = new ArrayList<>();
+    private final List<String> left = new ArrayList<>();
+    private long updates;
+    LiveVolumeRanking(QuoteQuotas quotas) {
+        this.quotes = quotas.quotes();
+        this.indexes = new TopNIndex[quotes.size()];
+        TopNIndex.Listener listener = new TopNIndex.Listener() {
+            @Override
+            public void entered(int row) {
+                entered.add(symbols[row]);
+            }
+            @Override
+            public void left(int row) {
+                left.add(symbols[row]);
+            }
+        };
+        for (int q = 0; q < indexes.length; q++) {
+            indexes[q] = new TopNIndex(quotas.quota(quotes.get(q)), 1024, listener);
+        }
+    }
+    void setRankChangeListener(Consumer<List<String>> listener) {
+        this.onRankChange = listener;
+    }
+    /**
+     * Replaces the symbols eligible for ranking (symbol to quote asset), e.g. after an exchangeInfo refresh.
+     */
+    synchronized void setActiveSymbols(Map<String, String> active) {
+        if (active.equals(activeSymbols)) {
+            return;
+        }
+        activeSymbols = active;
+        for (int row = 0; row < size; row++) {
+            int quote = quoteIndex(active.get(symbols[row]));
+            if (quote != rowQuotes[row]) {
+                if (rowQuotes[row] >= 0) {
+                    indexes[rowQuotes[row]].remove(row);
+                }
+                rowQuotes[row] = quote;
+                if (quote >= 0) {
+                    indexes[quote].update(row, volumes[row]);
+                }
+            }
+        }
+        rerank();
+    }
+    /**
+     * Seeds every symbol from one ticker24H snapshot so the ranking is complete before the stream has covered all symbols.
+     */
+    synchronized void seed(TickerVolumes snapshot) {
+        for (int i = 0; i < snapshot.size(); i++) {
+            update(snapshot.symbol(i), snapshot.quoteVolume(i));
+        }
+        rerank();
+    }
+    /**
+     * Applies one !miniTicker@arr payload: an array of {"s": symbol, "q": quote volume, ...} for the symbols that changed.
+     */
+    void onMessage(String json) throws IOException {
+        try (JsonParser parser = MarketJson.factory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected mini-ticker array but found " + parser.currentToken());
+            }
+            synchronized (this) {
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == null) {
+                        throw new IOException("Unexpected end of mini-ticker payload");
+                    }
+                    if (token != JsonToken.START_OBJECT) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    String symbol = null;
+                    double quoteVolume = Double.NaN;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = parser.currentName();
+                        parser.nextToken();
+                        if ("s".equals(field)) {
+                            symbol = parser.getText();
+                        } else if ("q".equals(field)) {
+                            quoteVolume = parser.getValueAsDouble(Double.NaN);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    if (symbol != null && !Double.isNaN(quoteVolume)) {
+                        update(symbol, quoteVolume);
+                    }
+                }
+                rerank();
+            }
+        }
+    }
+    /**
+     * Current volumes of the active symbols, in the shape the snapshot ranking path consumes.
+     */
+    synchronized TickerVolumes snapshot() {
+        TickerVolumes snapshot = new TickerVolumes(activeSymbols.size());
+        for (int row = 0; row < size; row++) {
+            if (rowQuotes[row] >= 0) {
+                snapshot.add(symbols[row], volumes[row]);
+            }
+        }
+        return snapshot;
+    }
+    synchronized long updates() {
+        return updates;
+    }
+    private void update(String symbol, double quoteVolume) {
+        Integer row = rows.get(symbol);
+        if (row == null) {
+            if (size == symbols.length) {
+                int capacity = size + (size >> 1);
+                symbols = Arrays.copyOf(symbols, capacity);
+                volumes = Arrays.copyOf(volumes, capacity);
+                rowQuotes = Arrays.copyOf(rowQuotes, capacity);
+            }
+            row = size++;
+            rows.put(symbol, row);
+            symbols[row] = symbol;
+            rowQuotes[row] = quoteIndex(activeSymbols.get(symbol));
+        }
+        volumes[row] = quoteVolume;
+        // Inactive symbols are tracked but kept out of the indexes
+        if (rowQuotes[row] >= 0) {
+            indexes[rowQuotes[row]].update(row, quoteVolume);
+        }
+        updates++;
+    }
+    private int quoteIndex(String quote) {
+        return quote == null ? -1 : quotes.indexOf(quote);
+    }
+    private void rerank() {
+        if (entered.isEmpty() && left.isEmpty()) {
+            return;
+        }
+        List<String> ranking = new ArrayList<>();
+        for (TopNIndex index : indexes) {
+            for (int row : index.topIds()) {
+                ranking.add(symbols[row]);
+            }
+        }
+        logger.fine("Live top " + ranking.size() + " changed: entered " + entered + ", left " + left);
+        entered.clear();
+        left.clear();
+        onRankChange.accept(ranking);
+    }
+}
@@ -0,0 +1,306 @@
+package com.example;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+/**
+ * Incremental indexer for the per-bot log files. Each pass reads only the bytes appended since the offset saved
+ * in the file's sidecar (logs/.index/&lt;SYMBOL&gt;.idx) and records, per wall-clock minute, the byte offset where
+ * that minute's output starts plus its ERROR/WARN line counts. A "logs &lt;SYMBOL&gt; --since 10m" query then seeks
+ * straight to the first matching bucket instead of scanning the file. Only the daemon writes sidecars; queries read them.
+ * Sidecar layout: magic, version, indexed offset, then fixed 24-byte buckets (minute, start offset, errors, warnings).
+ * When rotation truncates a log, its index restarts with the new live file.
+ */
+final class LogIndexer implements Runnable {
+    private static final Logger logger = Logger.getLogger(LogIndexer.class.getName());
+    static final String INDEX_DIR = ".index";
+    private static final int MAGIC = 0x4C4F4758; // "LOGX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int BUCKET_BYTES = 24;
+    private static final int READ_CHUNK = 256 * 1024;
+    private static final byte[][] ERROR_MARKERS = {"ERROR".getBytes(), "SEVERE".getBytes()};
+    private static final byte[][] WARN_MARKERS = {"WARN".getBytes()};
+    private final Path logDir;
+    record Bucket(long minute, long startOffset, int errors, int warnings) {
+    }
+    LogIndexer(Path logDir) {
+        this.logDir = logDir;
+    }
+    @Override
+    public void run() {
+        try {
+            indexAll();
+        } catch (Exception e) {
+            // Runs on a scheduler; an escaped exception would silently cancel all future passes
+            logger.warning("Log indexing failed: " + e.getMessage());
+        }
+    }
+    synchronized void indexAll() throws IOException {
+        if (!Files.isDirectory(logDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(logDir, "*.log")) {
+            for (Path file : files) {
+                index(file);
+            }
+        }
+    }
+    /**
+     * Indexes the bytes appended to one log since the last pass. Only complete lines are consumed;
+     * a trailing partial line is left for the next pass.
+     */
+    synchronized void index(Path logFile) throws IOException {
+        Path sidecar = sidecarFor(logFile);
+        Files.createDirectories(sidecar.getParent());
+        try (FileChannel log = FileChannel.open(logFile, StandardOpenOption.READ);
+             FileChannel idx = FileChannel.open(sidecar, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+            long offset = readHeader(idx);
+            long size = log.size();
+            if (size < offset) {
+                // Truncated by rotation: the indexed bytes now live in a gzipped segment
+                idx.truncate(HEADER_BYTES);
+                offset = 0;
+            }
+            if (size == offset) {
+                writeHeader(idx, offset);
+                return;
+            }
+            long minute = System.currentTimeMillis() / 60_000;
+            Bucket last = lastBucket(idx);
+            Bucket current = last != null && last.minute() == minute ? last : new Bucket(minute, offset, 0, 0);
+            int[] counts = {current.errors(), current.warnings()};
+            long position = scanLines(log, offset, size, counts);
+            Bucket updated = new Bucket(current.minute(), current.startOffset(), counts[0], counts[1]);
+            long bucketCount = (idx.size() - HEADER_BYTES) / BUCKET_BYTES;
+            long slot = current == last ? bucketCount - 1 : bucketCount;
+            writeBucket(idx, slot, updated);
+            writeHeader(idx, position);
+        }
+    }
+    /**
+     * Forgets a log's buckets after the rotator truncated it, so offsets never point into the old segment.
+     */
+    synchronized void reset(Path logFile) throws IOException {
+        Path sidecar = sidecarFor(logFile);
+        if (Files.isRegularFile(sidecar)) {
+            try (FileChannel idx = FileChannel.open(sidecar, StandardOpenOption.WRITE)) {
+                idx.truncate(HEADER_BYTES);
+                writeHeader(idx, 0);
+            }
+        }
+    }
+    /**
+     * Buckets recorded for a log, oldest first.
+     */
+    static List<Bucket> buckets(Path logFile) throws IOException {
+        Path sidecar = sidecarFor(logFile);
+        List<Bucket> buckets = new ArrayList<>();
+        if (!Files.isRegularFile(sidecar)) {
+            return buckets;
+        }
+        try (FileChannel idx = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            long count = (idx.size() - HEADER_BYTES) / BUCKET_BYTES;
+            ByteBuffer all = ByteBuffer.allocate((int) (count * BUCKET_BYTES));
+            idx.read(all, HEADER_BYTES);
+            all.flip();
+            for (long i = 0; i < count; i++) {
+                buckets.add(new Bucket(all.getLong(), all.getLong(), all.getInt(), all.getInt()));
+            }
+        }
+        return buckets;
+    }
+    /**
+     * Prints the symbol's ERROR/WARN counts for the window, then streams the log from the first bucket inside the
+     * window to the end of the file. Read-only: the sidecar is never written (the daemon that maintains it runs as root,
+     * so a query by the bot user could not write it anyway, and two writers would race). Output appended since the
+     * daemon's last pass is classified in memory and counted in the current minute, as the next pass will record it.
+     */
+    static void query(Path logDir, String symbol, long sinceMillis, OutputStream out) throws IOException {
+        Path logFile = logDir.resolve(symbol + ".log");
+        if (!Files.isRegularFile(logFile)) {
+            throw new IOException("No log file for " + symbol + " at " + logFile);
+        }
+        long start = System.nanoTime();
+        // Header before buckets: a pass racing with this query can only make a minute count twice, never skip output
+        long indexedOffset = indexedOffset(logFile);
+        // Offset 0 means nothing indexed yet (or no usable sidecar), so there are no buckets worth reading
+        List<Bucket> buckets = indexedOffset > 0 ? buckets(logFile) : List.of();
+        long fromMinute = (System.currentTimeMillis() - sinceMillis) / 60_000;
+        long fromOffset = -1;
+        int[] counts = new int[2];
+        try (FileChannel log = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long size = log.size();
+            if (size < indexedOffset) {
+                // Rotated since the last pass: the saved buckets describe the old segment
+                buckets = List.of();
+                indexedOffset = 0;
+            }
+            for (Bucket bucket : buckets) {
+                if (bucket.minute() >= fromMinute) {
+                    if (fromOffset < 0) {
+                        fromOffset = bucket.startOffset();
+                    }
+                    counts[0] += bucket.errors();
+                    counts[1] += bucket.warnings();
+                }
+            }
+            if (indexedOffset < size) {
+                scanLines(log, indexedOffset, size, counts);
+                if (fromOffset < 0) {
+                    fromOffset = indexedOffset;
+                }
+            }
+            logger.info(String.format("%s: %d ERROR, %d WARN lines in the last %d min (index lookup %d ms, %d unindexed bytes)",
+                    symbol, counts[0], counts[1], sinceMillis / 60_000, (System.nanoTime() - start) / 1_000_000, size - indexedOffset));
+            if (fromOffset < 0) {
+                return;
+            }
+            log.transferTo(fromOffset, size - fromOffset, Channels.newChannel(out));
+        }
+        out.flush();
+    }
+    /**
+     * Parses durations like "90s", "10m", "2h" or "1d" (bare numbers are minutes).
+     */
+    static long parseDuration(String value) {
+        char unit = value.charAt(value.length() - 1);
+        long scale;
+        switch (unit) {
+            case 's':
+                scale = 1_000L;
+                break;
+            case 'h':
+                scale = 3_600_000L;
+                break;
+            case 'd':
+                scale = 86_400_000L;
+                break;
+            case 'm':
+                scale = 60_000L;
+                break;
+            default:
+                return Long.parseLong(value) * 60_000L;
+        }
+        return Long.parseLong(value.substring(0, value.length() - 1)) * scale;
+    }
+    private static Path sidecarFor(Path logFile) {
+        String name = logFile.getFileName().toString();
+        return logFile.resolveSibling(INDEX_DIR).resolve(name.substring(0, name.length() - ".log".length()) + ".idx");
+    }
+    /**
+     * Log offset the sidecar has indexed up to, or 0 when there is no usable sidecar. Opens it read-only.
+     */
+    private static long indexedOffset(Path logFile) throws IOException {
+        Path sidecar = sidecarFor(logFile);
+        if (!Files.isRegularFile(sidecar)) {
+            return 0;
+        }
+        try (FileChannel idx = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+            if (idx.size() < HEADER_BYTES) {
+                return 0;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            idx.read(header, 0);
+            header.flip();
+            return header.getInt() == MAGIC && header.getInt() == VERSION ? header.getLong() : 0;
+        }
+    }
+    /**
+     * Classifies the complete lines in log[from, to), adding ERROR/WARN lines to counts[0]/counts[1], and returns the
+     * offset after the last complete line; a trailing partial line is left for the next pass.
+     */
+    private static long scanLines(FileChannel log, long from, long to, int[] counts) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_CHUNK);
+        long position = from;
+        while (position < to) {
+            buffer.clear().limit((int) Math.min(READ_CHUNK, to - position));
+            int n = log.read(buffer, position);
+            if (n <= 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            int lineStart = 0;
+            int consumed = 0;
+            for (int i = 0; i < n; i++) {
+                if (bytes[i] == '\n') {
+                    if (containsAny(bytes, lineStart, i, ERROR_MARKERS)) {
+                        counts[0]++;
+                    } else if (containsAny(bytes, lineStart, i, WARN_MARKERS)) {
+                        counts[1]++;
+                    }
+                    lineStart = i + 1;
+                    consumed = lineStart;
+                }
+            }
+            if (consumed == 0) {
+                // A single line longer than the read chunk: count it as consumed without classifying
+                consumed = n == READ_CHUNK ? n : 0;
+                if (consumed == 0) {
+                    break;
+                }
+            }
+            position += consumed;
+        }
+        return position;
+    }
+    private static long readHeader(FileChannel idx) throws IOException {
+        if (idx.size() < HEADER_BYTES) {
+            idx.truncate(0);
+            writeHeader(idx, 0);
+            return 0;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        idx.read(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            // Unknown or corrupt sidecar: rebuild from the start of the log
+            idx.truncate(0);
+            writeHeader(idx, 0);
+            return 0;
+        }
+        return header.getLong();
+    }
+    private static void writeHeader(FileChannel idx, long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putLong(offset).flip();
+        idx.write(header, 0);
+    }
+    private static Bucket lastBucket(FileChannel idx) throws IOException {
+        long count = (idx.size() - HEADER_BYTES) / BUCKET_BYTES;
+        if (count == 0) {
+            return null;
+        }
+        ByteBuffer b = ByteBuffer.allocate(BUCKET_BYTES);
+        idx.read(b, HEADER_BYTES + (count - 1) * BUCKET_BYTES);
+        b.flip();
+        return new Bucket(b.getLong(), b.getLong(), b.getInt(), b.getInt());
+    }
+    private static void writeBucket(FileChannel idx, long slot, Bucket bucket) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(BUCKET_BYTES);
+        b.putLong(bucket.minute()).putLong(bucket.startOffset()).putInt(bucket.errors()).putInt(bucket.warnings()).flip();
+        idx.write(b, HEADER_BYTES + slot * BUCKET_BYTES);
+    }
+    private static boolean containsAny(byte[] bytes, int from, int to, byte[][] markers) {
+        for (byte[] marker : markers) {
+            outer:
+            for (int i = from; i <= to - marker.length; i++) {
+                for (int j = 0; j < marker.length; j++) {
+                    if (bytes[i + j] != marker[j]) {
+                        continue outer;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+}
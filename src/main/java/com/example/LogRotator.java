@@ -0,0 +1,121 @@
+package com.example;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+/**
+ * Size- and age-based rotation of the per-bot log files in the logs directory, run periodically by the daemon.
+ * systemd keeps each bot's log open with O_APPEND, so rotation is copy-and-truncate: the live file is streamed
+ * through gzip into &lt;symbol&gt;.log.&lt;timestamp&gt;.gz and then truncated in place, and the bot keeps appending
+ * at the new end. Lines written between the copy and the truncate are lost, as with logrotate's copytruncate.
+ * Only the newest keepSegments compressed segments per bot are retained. When a {@link LogIndexer} is attached,
+ * each file is indexed right before it is rotated and its index is reset right after.
+ */
+final class LogRotator implements Runnable {
+    private static final Logger logger = Logger.getLogger(LogRotator.class.getName());
+    private static final DateTimeFormatter SEGMENT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private final Path logDir;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final int keepSegments;
+    private final LogIndexer indexer;
+    // When each live file was last rotated (or first seen); drives age-based rotation
+    private final Map<Path, Long> segmentStart = new HashMap<>();
+    LogRotator(Path logDir, long maxBytes, long maxAgeMillis, int keepSegments, LogIndexer indexer /* nullable */) {
+        this.logDir = logDir;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        this.keepSegments = keepSegments;
+        this.indexer = indexer;
+    }
+    @Override
+    public void run() {
+        try {
+            rotateAll();
+        } catch (Exception e) {
+            // Runs on a scheduler; an escaped exception would silently cancel all future rotations
+            logger.warning("Log rotation failed: " + e.getMessage());
+        }
+    }
+    synchronized void rotateAll() throws IOException {
+        if (!Files.isDirectory(logDir)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Path> live = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(logDir, "*.log")) {
+            for (Path file : files) {
+                live.add(file);
+            }
+        }
+        for (Path file : live) {
+            long size = Files.size(file);
+            long started = segmentStart.computeIfAbsent(file, f -> now);
+            if (size > 0 && (size >= maxBytes || now - started >= maxAgeMillis)) {
+                long start = System.nanoTime();
+                if (indexer != null) {
+                    indexer.index(file);
+                }
+                Path segment = rotate(file, size);
+                if (indexer != null) {
+                    indexer.reset(file);
+                }
+                segmentStart.put(file, now);
+                logger.info(String.format("Rotated %s (%d bytes) to %s in %d ms", file.getFileName(), size, segment.getFileName(),
+                        (System.nanoTime() - start) / 1_000_000));
+                prune(file);
+            }
+        }
+        segmentStart.keySet().retainAll(live);
+    }
+    private Path rotate(Path file, long size) throws IOException {
+        Path segment = logDir.resolve(file.getFileName() + "." + LocalDateTime.now().format(SEGMENT_TIME) + ".gz");
+        Path tmp = logDir.resolve(segment.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Compress exactly the bytes present now, then drop them; later appends land after the truncation point
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024)) {
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                long position = 0;
+                while (position < size) {
+                    buffer.clear().limit((int) Math.min(buffer.capacity(), size - position));
+                    int n = channel.read(buffer, position);
+                    if (n < 0) {
+                        break;
+                    }
+                    out.write(buffer.array(), 0, n);
+                    position += n;
+                }
+            }
+            Files.move(tmp, segment);
+            channel.truncate(0);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return segment;
+    }
+    private void prune(Path file) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(logDir, file.getFileName() + ".*.gz")) {
+            for (Path segment : files) {
+                segments.add(segment);
+            }
+        }
+        // Timestamped names sort chronologically
+        segments.sort(null);
+        for (int i = 0; i < segments.size() - keepSegments; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+}
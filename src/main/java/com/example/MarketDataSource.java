@@ -0,0 +1,27 @@
+package com.example;
+import java.util.Set;
+/**
+ * Where the discovery phase gets its raw exchangeInfo and ticker24H payloads from.
+ * Implementations: {@link HttpMarketDataSource} (public REST on the JDK client), {@link BinanceMarketDataSource}
+ * (REST through the connector), {@link ReplayMarketDataSource} (recorded snapshots)
+ * and {@link RecordingMarketDataSource}, which captures whatever another source returns.
+ * A cold-start discovery fetches both payloads through {@link #snapshot()}.
+ */
+interface MarketDataSource {
+    String exchangeInfo() throws Exception;
+    String ticker24H() throws Exception;
+    /**
+     * An exchangeInfo and a ticker24H that belong together. By default the two calls run concurrently through
+     * {@link MarketSnapshotFetcher}; sources whose pairing depends on call order override this to fetch them in sequence.
+     */
+    default MarketSnapshot snapshot() throws Exception {
+        return MarketSnapshotFetcher.fetch(this::exchangeInfo, this::ticker24H);
+    }
+    /**
+     * Quote volumes of the wanted symbols from a fresh ticker24H. Sources that can stream override this to feed the
+     * response straight into {@link TickerStreamParser} instead of materializing the body as a String.
+     */
+    default TickerVolumes tickerVolumes(Set<String> wantedSymbols) throws Exception {
+        return TickerStreamParser.parse(ticker24H(), wantedSymbols);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+/**
+ * Single shared, pre-configured Jackson setup for Binance market payloads and the orchestrator's own JSON files.
+ * The streaming readers ({@link TickerStreamParser}, {@link ExchangeInfoStreamParser}, {@link LiveVolumeRanking})
+ * decode the fields ranking needs straight into primitive columns through this factory, so there is one place to tune
+ * parsing. Unknown properties are ignored when binding records such as the exchangeInfo cache snapshot.
+ */
+final class MarketJson {
+    static final ObjectMapper MAPPER = JsonMapper.builder(JsonFactory.builder()
+                    .enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER)
+                    .build())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private MarketJson() {
+    }
+    static JsonFactory factory() {
+        return MAPPER.getFactory();
+    }
+}
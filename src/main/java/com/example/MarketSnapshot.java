@@ -0,0 +1,6 @@
+package com.example;
+/**
+ * Raw exchangeInfo and ticker24H payloads fetched together, with the wall-clock cost of each call in milliseconds.
+ */
+record MarketSnapshot(String exchangeInfoJson, String tickersJson, long exchangeInfoMillis, long tickersMillis) {
+}
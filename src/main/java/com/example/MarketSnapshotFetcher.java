@@ -0,0 +1,79 @@
+package com.example;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+/**
+ * Fetch stage for the discovery phase: runs the exchangeInfo and ticker24H calls concurrently,
+ * since neither depends on the other, and joins them into a single {@link MarketSnapshot}.
+ * The first call to fail aborts the wait and is rethrown to the caller; the other call's task is cancelled, which
+ * interrupts its thread. A request that is already on the wire may still complete at the exchange (and its weight
+ * is already reserved in the {@link RateBudget}), but its response is no longer read or parsed.
+ */
+final class MarketSnapshotFetcher {
+    private static final Logger logger = Logger.getLogger(MarketSnapshotFetcher.class.getName());
+    // Daemon threads so an in-flight call never keeps the JVM alive after main returns
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "market-fetch");
+        t.setDaemon(true);
+        return t;
+    });
+    private MarketSnapshotFetcher() {
+    }
+    static MarketSnapshot fetch(Callable<String> exchangeInfoCall, Callable<String> tickersCall) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        CompletionService<Timed> completion = new ExecutorCompletionService<>(EXECUTOR);
+        Future<Timed> exchangeInfo = completion.submit(() -> timed(exchangeInfoCall));
+        Future<Timed> tickers = completion.submit(() -> timed(tickersCall));
+        int pending = 2;
+        try {
+            // Results arrive in completion order, so the first failure surfaces without waiting for the slower call
+            for (; pending > 0; pending--) {
+                try {
+                    completion.take().get();
+                } catch (ExecutionException e) {
+                    throw unwrap(e.getCause());
+                }
+            }
+        } finally {
+            if (pending > 0) {
+                exchangeInfo.cancel(true);
+                tickers.cancel(true);
+            }
+        }
+        Timed ex = result(exchangeInfo);
+        Timed tk = result(tickers);
+        logger.info(String.format("Fetched market snapshot in %d ms (exchangeInfo %d ms, ticker24H %d ms)",
+                (System.nanoTime() - start) / 1_000_000, ex.millis(), tk.millis()));
+        return new MarketSnapshot(ex.body(), tk.body(), ex.millis(), tk.millis());
+    }
+    private static Timed timed(Callable<String> call) throws Exception {
+        long start = System.nanoTime();
+        String body = call.call();
+        return new Timed(body, (System.nanoTime() - start) / 1_000_000);
+    }
+    // Only called once the future is known to have completed successfully
+    private static Timed result(Future<Timed> done) throws IOException, InterruptedException {
+        try {
+            return done.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+    private static IOException unwrap(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException("Market snapshot fetch failed: " + cause, cause);
+    }
+    private record Timed(String body, long millis) {
+    }
+}
@@ -0,0 +1,135 @@
+package com.example;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+/**
+ * Asynchronous process runner: starts a child, drains its merged stdout/stderr on a background thread into a
+ * bounded ring buffer (only the last lines are kept), and completes a {@link CompletableFuture} from
+ * {@link Process#onExit()}. Deadlines escalate from SIGTERM to SIGKILL after a grace period, so no command can
+ * stall the orchestrator for longer than timeout + grace.
+ */
+final class ProcessRunner {
+    // Shared daemon pools: drainers block on pipe reads, the timer only fires deadlines
+    private static final ExecutorService DRAINERS = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "process-drain");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "process-deadline");
+        t.setDaemon(true);
+        return t;
+    });
+    private final long timeoutMillis;
+    private final long killGraceMillis;
+    private final int tailLines;
+    /**
+     * Outcome of one command: exit code (-1 if it never produced one), total output lines, the last output lines,
+     * wall time and failure cause (null on success).
+     */
+    record Result(List<String> command, int exitCode, int outputLines, List<String> outputTail, long millis, String error) {
+        boolean ok() {
+            return error == null;
+        }
+    }
+    ProcessRunner(long timeoutMillis, long killGraceMillis, int tailLines) {
+        this.timeoutMillis = timeoutMillis;
+        this.killGraceMillis = killGraceMillis;
+        this.tailLines = tailLines;
+    }
+    CompletableFuture<Result> start(List<String> command) {
+        long start = System.nanoTime();
+        Process p;
+        try {
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.redirectErrorStream(true);
+            p = pb.start();
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(new Result(command, -1, 0, List.of(), elapsedMillis(start), e.getMessage()));
+        }
+        OutputTail tail = new OutputTail(tailLines);
+        CompletableFuture<Void> drained = CompletableFuture.runAsync(() -> drain(p, tail), DRAINERS);
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> deadline = TIMER.schedule(() -> {
+            timedOut.set(true);
+            p.destroy();
+            TIMER.schedule(() -> {
+                if (p.isAlive()) {
+                    p.destroyForcibly();
+                }
+            }, killGraceMillis, TimeUnit.MILLISECONDS);
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        // A grandchild may inherit the pipe and keep it open; stop waiting for output shortly after the child exits
+        return p.onExit()
+                .thenCompose(exited -> {
+                    // The child is done; a deadline firing while the drain finishes must not mark it as timed out
+                    deadline.cancel(false);
+                    return drained.completeOnTimeout(null, killGraceMillis, TimeUnit.MILLISECONDS);
+                })
+                .handle((ignored, drainError) -> {
+                    int exit = p.exitValue();
+                    String error;
+                    if (timedOut.get()) {
+                        error = "timed out after " + timeoutMillis + " ms";
+                    } else if (drainError != null) {
+                        error = "failed reading output: " + drainError.getMessage();
+                    } else if (exit != 0) {
+                        error = "Command '" + String.join(" ", command) + "' failed with exit code " + exit;
+                    } else {
+                        error = null;
+                    }
+                    return new Result(command, exit, tail.total(), tail.lines(), elapsedMillis(start), error);
+                });
+    }
+    private static void drain(Process p, OutputTail tail) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                tail.add(line);
+            }
+        } catch (IOException e) {
+            // The stream is closed under us when a timed-out process is killed; only report it for live processes
+            if (p.isAlive()) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+    // Fixed-size ring of the most recent output lines plus a total line count
+    private static final class OutputTail {
+        private final String[] ring;
+        private int next;
+        private int total;
+        OutputTail(int capacity) {
+            ring = new String[Math.max(1, capacity)];
+        }
+        synchronized void add(String line) {
+            ring[next] = line;
+            next = (next + 1) % ring.length;
+            total++;
+        }
+        synchronized int total() {
+            return total;
+        }
+        synchronized List<String> lines() {
+            int count = Math.min(total, ring.length);
+            List<String> lines = new ArrayList<>(count);
+            for (int i = count; i > 0; i--) {
+                lines.add(ring[(next - i + ring.length) % ring.length]);
+            }
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+/**
+ * Which quote assets to run bots for and how many bots each gets, e.g. ranking.quotes=USDC:20,USDT:10,FDUSD:5,
+ * with an optional global cap on the merged plan (ranking.global.cap, 0 = no cap).
+ * Volumes in different quote assets are not comparable, so the cap never ranks across quotes: it keeps each
+ * quote's best symbols round-robin (every quote's #1, then every #2, ...), with quotes listed first winning the last slots.
+ */
+final class QuoteQuotas {
+    private final List<String> quotes;
+    private final Map<String, Integer> quotas;
+    private final int globalCap;
+    QuoteQuotas(Map<String, Integer> quotas, int globalCap) {
+        if (quotas.isEmpty()) {
+            throw new IllegalArgumentException("At least one quote asset is required");
+        }
+        for (Map.Entry<String, Integer> quota : quotas.entrySet()) {
+            if (quota.getValue() < 1) {
+                throw new IllegalArgumentException("Quota for " + quota.getKey() + " must be >= 1 but was " + quota.getValue());
+            }
+        }
+        this.quotas = Collections.unmodifiableMap(new LinkedHashMap<>(quotas));
+        this.quotes = List.copyOf(quotas.keySet());
+        this.globalCap = globalCap;
+    }
+    /**
+     * Parses "USDC:20,USDT:10"; a quote without ":n" gets defaultQuota. Null or blank yields defaultQuote:defaultQuota.
+     */
+    static QuoteQuotas fromProperties(String quotesValue, String capValue, String defaultQuote, int defaultQuota) {
+        Map<String, Integer> quotas = new LinkedHashMap<>();
+        if (quotesValue == null || quotesValue.isBlank()) {
+            quotas.put(defaultQuote, defaultQuota);
+        } else {
+            for (String entry : quotesValue.split(",")) {
+                String[] parts = entry.trim().split(":");
+                String quote = parts[0].trim().toUpperCase();
+                if (quote.isEmpty()) {
+                    continue;
+                }
+                if (quotas.put(quote, parts.length > 1 ? Integer.parseInt(parts[1].trim()) : defaultQuota) != null) {
+                    throw new IllegalArgumentException("Quote asset " + quote + " is listed twice in ranking.quotes");
+                }
+            }
+        }
+        int cap = capValue == null || capValue.isBlank() ? 0 : Integer.parseInt(capValue.trim());
+        return new QuoteQuotas(quotas, cap);
+    }
+    /**
+     * Quote assets in configuration order.
+     */
+    List<String> quotes() {
+        return quotes;
+    }
+    int quota(String quote) {
+        return quotas.get(quote);
+    }
+    /**
+     * Upper bound on the merged plan: the sum of the quotas, limited by the global cap if one is set.
+     */
+    int maxBots() {
+        int sum = 0;
+        for (int quota : quotas.values()) {
+            sum += quota;
+        }
+        return globalCap > 0 ? Math.min(globalCap, sum) : sum;
+    }
+    /**
+     * Splits one parsed ticker snapshot into per-quote columns in a single pass over its rows.
+     * Rows whose symbol has no configured quote are dropped.
+     */
+    Map<String, TickerVolumes> split(TickerVolumes tickers, Map<String, String> quoteOf) {
+        Map<String, TickerVolumes> byQuote = new HashMap<>();
+        for (String quote : quotes) {
+            byQuote.put(quote, new TickerVolumes(tickers.size() / quotes.size()));
+        }
+        for (int row = 0; row < tickers.size(); row++) {
+            String quote = quoteOf.get(tickers.symbol(row));
+            TickerVolumes column = quote == null ? null : byQuote.get(quote);
+            if (column != null) {
+                column.add(tickers, row);
+            }
+        }
+        return byQuote;
+    }
+    /**
+     * Merges per-quote rankings (each best first, already within its quota) into one deployment plan,
+     * applying the global cap round-robin by per-quote rank.
+     */
+    List<String> merge(Map<String, List<String>> rankedByQuote) {
+        int cap = maxBots();
+        List<String> plan = new ArrayList<>(cap);
+        for (int rank = 0; plan.size() < cap; rank++) {
+            boolean any = false;
+            for (String quote : quotes) {
+                List<String> ranked = rankedByQuote.getOrDefault(quote, List.of());
+                if (rank < ranked.size() && rank < quota(quote)) {
+                    any = true;
+                    if (plan.size() < cap) {
+                        plan.add(ranked.get(rank));
+                    }
+                }
+            }
+            if (!any) {
+                break;
+            }
+        }
+        return plan;
+    }
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        for (String quote : quotes) {
+            out.append(out.length() == 0 ? "" : ",").append(quote).append(':').append(quotas.get(quote));
+        }
+        return globalCap > 0 ? out + " (cap " + globalCap + ")" : out.toString();
+    }
+}
@@ -0,0 +1,292 @@
+package com.example;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+/**
+ * Append-only binary history of every ranked ticker snapshot, kept in workingDir/history so selection decisions
+ * can be replayed, churn computed and ranking policies backtested without re-downloading anything.
+ * ranking.hist holds a 16-byte header (magic, version, committed record count) followed by fixed 32-byte records
+ * (timestamp, symbol id, rank, quoteVolume, count), one per active symbol per snapshot; rank is the symbol's
+ * 1-based position in the deployment plan, 0 if it got no bot. Symbol ids index symbols.dict, one symbol per line.
+ * The record file is written and read through memory-mapped windows. New symbols and records are forced to disk
+ * before the header count is bumped, so a crash mid-append, power loss included, only loses that snapshot.
+ * One writer per directory (enforced with a file lock); readers may scan while it appends.
+ */
+final class RankingHistory implements Closeable {
+    static final String DIR = "history";
+    static final String DATA_FILE = "ranking.hist";
+    static final String DICTIONARY_FILE = "symbols.dict";
+    private static final int MAGIC = 0x52484953; // "RHIS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 32;
+    // Records are mapped in fixed 8 MB windows, so the file can grow past the 2 GB limit of a single mapping
+    static final int RECORDS_PER_WINDOW = 1 << 18;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedByteBuffer header;
+    private final FileChannel dictionary;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private MappedByteBuffer window;
+    private long windowIndex = -1;
+    private long records;
+    private boolean closed;
+    /**
+     * Visits one history record; see the class comment for the fields.
+     */
+    interface Visitor {
+        void record(long timestamp, int symbolId, int rank, double quoteVolume, double count);
+    }
+    RankingHistory(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        channel = FileChannel.open(dir.resolve(DATA_FILE), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            FileLock held;
+            try {
+                held = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                held = null;
+            }
+            lock = held;
+            if (lock == null) {
+                throw new IOException("ranking history in " + dir + " is in use by another process");
+            }
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            if (header.getInt(0) == 0) {
+                header.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, 0);
+            } else if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException(dir.resolve(DATA_FILE) + " is not a version " + VERSION + " ranking history");
+            }
+            records = header.getLong(8);
+            List<String> symbols = readDictionary(dir, true);
+            for (int id = 0; id < symbols.size(); id++) {
+                ids.put(symbols.get(id), id);
+            }
+            dictionary = FileChannel.open(dir.resolve(DICTIONARY_FILE), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    /**
+     * Number of committed records.
+     */
+    synchronized long records() {
+        return records;
+    }
+    /**
+     * Appends one snapshot: a record per ticker row, ranked by its position in the plan.
+     */
+    synchronized void append(long timestamp, TickerVolumes tickers, List<String> plan) throws IOException {
+        if (closed) {
+            throw new IOException("ranking history is closed");
+        }
+        Map<String, Integer> ranks = new HashMap<>(plan.size() * 2);
+        for (int i = 0; i < plan.size(); i++) {
+            ranks.put(plan.get(i), i + 1);
+        }
+        int[] symbolIds = new int[tickers.size()];
+        StringBuilder newSymbols = new StringBuilder();
+        for (int row = 0; row < symbolIds.length; row++) {
+            Integer id = ids.get(tickers.symbol(row));
+            if (id == null) {
+                id = ids.size();
+                ids.put(tickers.symbol(row), id);
+                newSymbols.append(tickers.symbol(row)).append('\n');
+            }
+            symbolIds[row] = id;
+        }
+        if (newSymbols.length() > 0) {
+            // Ids must be resolvable before any record referencing them is committed
+            ByteBuffer lines = StandardCharsets.US_ASCII.encode(newSymbols.toString());
+            while (lines.hasRemaining()) {
+                dictionary.write(lines);
+            }
+            dictionary.force(false);
+        }
+        double[] counts = tickers.counts();
+        long next = records;
+        for (int row = 0; row < symbolIds.length; row++, next++) {
+            ByteBuffer out = windowFor(next);
+            int at = (int) (next % RECORDS_PER_WINDOW) * RECORD_BYTES;
+            out.putLong(at, timestamp)
+                    .putInt(at + 8, symbolIds[row])
+                    .putInt(at + 12, ranks.getOrDefault(tickers.symbol(row), 0))
+                    .putDouble(at + 16, tickers.quoteVolume(row))
+                    .putDouble(at + 24, counts[row]);
+        }
+        if (window != null) {
+            window.force();
+        }
+        records = next;
+        header.putLong(8, records);
+        header.force();
+    }
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (dictionary; channel) {
+            header.force();
+            if (window != null) {
+                window.force();
+            }
+            lock.release();
+        }
+    }
+    private MappedByteBuffer windowFor(long record) throws IOException {
+        long index = record / RECORDS_PER_WINDOW;
+        if (index != windowIndex) {
+            if (window != null) {
+                // Records in the window being left must be durable before the header counts them
+                window.force();
+            }
+            // Mapping past the end grows the (sparse) file by one window
+            window = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + index * RECORDS_PER_WINDOW * RECORD_BYTES,
+                    (long) RECORDS_PER_WINDOW * RECORD_BYTES);
+            windowIndex = index;
+        }
+        return window;
+    }
+    /**
+     * Symbols by id. A trailing partial line (a crash mid-write, or a write in progress) is never referenced by a
+     * committed record and is skipped; the writer (repair) also truncates it away before appending.
+     */
+    static List<String> readDictionary(Path dir, boolean repair) throws IOException {
+        Path file = dir.resolve(DICTIONARY_FILE);
+        List<String> symbols = new ArrayList<>();
+        if (!Files.isRegularFile(file)) {
+            return symbols;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        int start = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                symbols.add(new String(bytes, start, i - start, StandardCharsets.US_ASCII));
+                start = i + 1;
+            }
+        }
+        if (repair && start < bytes.length) {
+            try (FileChannel dict = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                dict.truncate(start);
+            }
+        }
+        return symbols;
+    }
+    /**
+     * Visits every committed record with timestamp >= sinceMillis in append order and returns how many were visited.
+     * Snapshots are appended in time order, so the start is found by binary search rather than a scan.
+     */
+    static long scan(Path dir, long sinceMillis, Visitor visitor) throws IOException {
+        Path file = dir.resolve(DATA_FILE);
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (in.size() < HEADER_BYTES) {
+                return 0;
+            }
+            ByteBuffer head = ByteBuffer.allocate(HEADER_BYTES);
+            in.read(head, 0);
+            if (head.getInt(0) != MAGIC || head.getInt(4) != VERSION) {
+                throw new IOException(file + " is not a version " + VERSION + " ranking history");
+            }
+            long total = head.getLong(8);
+            long first = firstAtOrAfter(in, total, sinceMillis);
+            for (long start = first; start < total; ) {
+                long index = start / RECORDS_PER_WINDOW;
+                long end = Math.min(total, (index + 1) * RECORDS_PER_WINDOW);
+                // Map only committed records: touching pages past the end of the file would fault
+                MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + start * RECORD_BYTES, (end - start) * RECORD_BYTES);
+                for (int at = 0, n = (int) (end - start); n > 0; n--, at += RECORD_BYTES) {
+                    visitor.record(map.getLong(at), map.getInt(at + 8), map.getInt(at + 12), map.getDouble(at + 16), map.getDouble(at + 24));
+                }
+                start = end;
+            }
+            return total - first;
+        }
+    }
+    private static long firstAtOrAfter(FileChannel in, long total, long sinceMillis) throws IOException {
+        ByteBuffer timestamp = ByteBuffer.allocate(8);
+        long low = 0;
+        long high = total;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            timestamp.clear();
+            in.read(timestamp, HEADER_BYTES + mid * RECORD_BYTES);
+            if (timestamp.getLong(0) < sinceMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    /**
+     * Prints a summary of the history since sinceMillis ago: snapshots, symbols, time span and how many symbols
+     * entered the deployment plan per day, plus the scan rate.
+     */
+    static void report(Path dir, long sinceMillis, PrintStream out) throws IOException {
+        List<String> symbols = readDictionary(dir, false);
+        long[] stats = new long[4]; // snapshots, first timestamp, last timestamp, entries
+        BitSet[] selection = {new BitSet(symbols.size()), new BitSet(symbols.size())};
+        BitSet seen = new BitSet(symbols.size());
+        long start = System.nanoTime();
+        long visited = scan(dir, System.currentTimeMillis() - sinceMillis, (timestamp, symbolId, rank, quoteVolume, count) -> {
+            if (stats[0] == 0 || timestamp != stats[2]) {
+                // New snapshot: count plan entries of the one just finished, then start collecting this one
+                if (stats[0] > 1) {
+                    stats[3] += entered(selection[0], selection[1]);
+                }
+                if (stats[0] > 0) {
+                    BitSet previous = selection[0];
+                    selection[0] = selection[1];
+                    selection[1] = previous;
+                    selection[1].clear();
+                } else {
+                    stats[1] = timestamp;
+                }
+                stats[0]++;
+                stats[2] = timestamp;
+            }
+            seen.set(symbolId);
+            if (rank > 0) {
+                selection[1].set(symbolId);
+            }
+        });
+        if (stats[0] > 1) {
+            stats[3] += entered(selection[0], selection[1]);
+        }
+        long nanos = Math.max(1, System.nanoTime() - start);
+        if (visited == 0) {
+            out.println("No ranking history in " + dir + " for that period");
+            return;
+        }
+        double days = Math.max(1e-9, (stats[2] - stats[1]) / 86_400_000.0);
+        out.printf("%d snapshots, %d records, %d symbols over %.2f days%n", stats[0], visited, seen.cardinality(), days);
+        out.printf("%d plan entries (%.1f/day)%n", stats[3], stats[3] / days);
+        out.printf("Scanned in %d ms (%.1f M records/s)%n", nanos / 1_000_000, visited * 1e3 / nanos);
+    }
+    private static int entered(BitSet before, BitSet after) {
+        BitSet entered = (BitSet) after.clone();
+        entered.andNot(before);
+        return entered.cardinality();
+    }
+}
@@ -0,0 +1,194 @@
+package com.example;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+/**
+ * Stateful ranking stage that suppresses bot churn around the top-N boundary.
+ * Each symbol keeps a ring buffer of its most recent quote volumes (or {@link ScoringEngine} scores) and is ranked
+ * by their exponentially weighted average. Selection then applies rank bands: a newcomer must rank within enterRank to displace
+ * anyone, and a selected symbol is only dropped once its smoothed rank falls beyond exitRank.
+ * Meant to live across reconcile cycles; not thread-safe.
+ */
+final class RankingStabilizer {
+    private final int topN;
+    private final int enterRank;
+    private final int exitRank;
+    private final double[] weights;
+    private final Map<String, History> histories = new HashMap<>();
+    private final TopNSelector selector;
+    private Set<String> selected = new HashSet<>();
+    private long generation;
+    private int lastChurn;
+    RankingStabilizer(int topN, int enterRank, int exitRank, double alpha, int window) {
+        if (enterRank < 1 || enterRank > topN || exitRank < topN) {
+            throw new IllegalArgumentException("Rank bands must satisfy 1 <= enterRank <= topN <= exitRank, got enter="
+                    + enterRank + " topN=" + topN + " exit=" + exitRank);
+        }
+        if (alpha <= 0 || alpha > 1 || window < 1) {
+            throw new IllegalArgumentException("EWMA needs 0 < alpha <= 1 and window >= 1, got alpha=" + alpha + " window=" + window);
+        }
+        this.topN = topN;
+        this.enterRank = enterRank;
+        this.exitRank = exitRank;
+        this.selector = new TopNSelector(exitRank);
+        // weights[k] applies to the sample k snapshots ago
+        this.weights = new double[window];
+        for (int k = 0; k < window; k++) {
+            weights[k] = alpha * Math.pow(1 - alpha, k);
+        }
+    }
+    /**
+     * Stabilizer for a quote asset with the given quota, with enter/exit bands configured for referenceTopN bots
+     * scaled proportionally (e.g. enter 10 / exit 25 of 20 becomes enter 2 / exit 5 for a quota of 4).
+     */
+    static RankingStabilizer forQuota(int quota, int referenceTopN, int enterRank, int exitRank, double alpha, int window) {
+        int enter = Math.max(1, Math.min(quota, (int) Math.round((double) enterRank * quota / referenceTopN)));
+        int exit = Math.max(quota, (int) Math.round((double) exitRank * quota / referenceTopN));
+        return new RankingStabilizer(quota, enter, exit, alpha, window);
+    }
+    /**
+     * Feeds one ticker snapshot and returns the stabilized selection, highest smoothed volume first.
+     */
+    List<String> update(TickerVolumes tickers) {
+        return update(tickers, tickers.quoteVolumes());
+    }
+    /**
+     * Feeds one ticker snapshot scored per row (scores[i] for tickers row i) and returns the stabilized selection,
+     * highest smoothed score first.
+     */
+    List<String> update(TickerVolumes tickers, double[] rowScores) {
+        long gen = ++generation;
+        for (int i = 0; i < tickers.size(); i++) {
+            History history = histories.computeIfAbsent(tickers.symbol(i), s -> new History(weights.length));
+            history.push(rowScores[i]);
+            history.generation = gen;
+        }
+        // Symbols missing from this snapshot (delisted, halted) age out of their window and are then forgotten
+        for (Iterator<History> it = histories.values().iterator(); it.hasNext(); ) {
+            History history = it.next();
+            if (history.generation != gen) {
+                history.push(Double.NaN);
+                if (history.isEmpty()) {
+                    it.remove();
+                }
+            }
+        }
+        String[] symbols = new String[histories.size()];
+        double[] scores = new double[symbols.length];
+        int row = 0;
+        for (Map.Entry<String, History> entry : histories.entrySet()) {
+            symbols[row] = entry.getKey();
+            scores[row] = entry.getValue().score(weights);
+            row++;
+        }
+        int[] ranked = selector.select(scores, row);
+        boolean[] take = new boolean[ranked.length];
+        int count = 0;
+        // Incumbents inside the top N always stay
+        for (int pos = 0; pos < ranked.length && pos < topN; pos++) {
+            if (selected.contains(symbols[ranked[pos]])) {
+                take[pos] = true;
+                count++;
+            }
+        }
+        // Newcomers within the enter band claim the free slots first, displacing incumbents that slipped past the top N
+        for (int pos = 0; pos < enterRank && pos < ranked.length && count < topN; pos++) {
+            if (!take[pos]) {
+                take[pos] = true;
+                count++;
+            }
+        }
+        // Then incumbents still inside the exit band keep their bots
+        for (int pos = topN; pos < ranked.length && count < topN; pos++) {
+            if (selected.contains(symbols[ranked[pos]])) {
+                take[pos] = true;
+                count++;
+            }
+        }
+        // Any remaining gap (an incumbent fell past exitRank or vanished) is filled by best score
+        for (int pos = 0; pos < ranked.length && count < topN; pos++) {
+            if (!take[pos]) {
+                take[pos] = true;
+                count++;
+            }
+        }
+        List<String> result = new ArrayList<>(count);
+        Set<String> next = new HashSet<>(count * 2);
+        for (int pos = 0; pos < ranked.length; pos++) {
+            if (take[pos]) {
+                result.add(symbols[ranked[pos]]);
+                next.add(symbols[ranked[pos]]);
+            }
+        }
+        int entered = 0;
+        for (String symbol : next) {
+            if (!selected.contains(symbol)) {
+                entered++;
+            }
+        }
+        lastChurn = entered;
+        selected = next;
+        return result;
+    }
+    /**
+     * Narrows the last selection to the symbols actually deployed. A later stage (the global cap in
+     * {@link QuoteQuotas#merge}) may drop some; those must compete as newcomers next cycle, not keep incumbent status.
+     */
+    void retain(Set<String> deployed) {
+        selected.retainAll(deployed);
+    }
+    /**
+     * Smoothed quote volume (or score) of a symbol after the last update, or NaN if it has no history.
+     */
+    double score(String symbol) {
+        History history = histories.get(symbol);
+        return history == null ? Double.NaN : history.score(weights);
+    }
+    /**
+     * Number of symbols that entered the selection on the last update (each one displaced an incumbent once full).
+     */
+    int lastChurn() {
+        return lastChurn;
+    }
+    private static final class History {
+        private final double[] samples;
+        private int head;
+        private int count;
+        private long generation;
+        History(int window) {
+            samples = new double[window];
+        }
+        void push(double value) {
+            head = (head + 1) % samples.length;
+            samples[head] = value;
+            if (count < samples.length) {
+                count++;
+            }
+        }
+        boolean isEmpty() {
+            for (int k = 0; k < count; k++) {
+                if (!Double.isNaN(samples[(head - k + samples.length) % samples.length])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        // Weighted mean over the available samples, newest weighted highest; gaps (NaN) are skipped
+        double score(double[] weights) {
+            double sum = 0;
+            double norm = 0;
+            for (int k = 0; k < count; k++) {
+                double v = samples[(head - k + samples.length) % samples.length];
+                if (!Double.isNaN(v)) {
+                    sum += weights[k] * v;
+                    norm += weights[k];
+                }
+            }
+            return norm == 0 ? Double.NaN : sum / norm;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example;
+import java.util.logging.Logger;
+/**
+ * Client-side guard for Binance's per-IP request weight limit, which the orchestrator shares with every bot on the host.
+ * Calls acquire their endpoint weight before going out. Within the current 1-minute window (Binance counts per
+ * calendar minute), the estimate of used weight is the highest X-MBX-USED-WEIGHT-1M value reported by the exchange plus
+ * the weight of calls still in flight. Each response releases only its own call's reservation, since the reported value
+ * already counts that call but not concurrent ones whose responses are still outstanding. A call that would push the
+ * estimate past maxFraction of the limit waits for the next window. Without headers (e.g. a source that cannot see them)
+ * reservations are never released early, so this degrades to a local per-minute token bucket.
+ * A 429 blocks all calls for Retry-After (or an escalating backoff from 1 minute); a 418 (IP ban) does the same,
+ * starting at 2 minutes. Consecutive rate-limit responses double the backoff, and a success resets it. Rate-limited
+ * responses carry X-MBX-USED-WEIGHT-1M too, so only {@link #onSuccess} resets it, never the weight report.
+ */
+final class RateBudget {
+    private static final Logger logger = Logger.getLogger(RateBudget.class.getName());
+    private static final long TOO_MANY_REQUESTS_BACKOFF_MILLIS = 60_000;
+    private static final long BANNED_BACKOFF_MILLIS = 120_000;
+    private static final long MAX_BACKOFF_MILLIS = 3_600_000;
+    private final int weightLimit;
+    private final int budget;
+    private long windowMinute;
+    // Highest weight reported by the exchange for this window, and weight of acquired calls not yet reported
+    private int reportedWeight;
+    private int inFlightWeight;
+    private long blockedUntilMillis;
+    private long backoffMillis;
+    RateBudget(int weightLimit, double maxFraction) {
+        if (maxFraction <= 0 || maxFraction > 1) {
+            throw new IllegalArgumentException("Rate budget fraction must be in (0, 1] but was " + maxFraction);
+        }
+        this.weightLimit = weightLimit;
+        this.budget = (int) (weightLimit * maxFraction);
+    }
+    /**
+     * Waits until a call of the given weight fits the budget (and no rate-limit backoff is active), then reserves it.
+     * A call heavier than the whole budget is let through on an otherwise unused window rather than blocking forever.
+     */
+    synchronized void acquire(String endpoint, int weight) throws InterruptedException {
+        boolean deferred = false;
+        while (true) {
+            long now = System.currentTimeMillis();
+            rollWindow(now);
+            long waitMillis;
+            if (now < blockedUntilMillis) {
+                waitMillis = blockedUntilMillis - now;
+            } else {
+                int used = reportedWeight + inFlightWeight;
+                if (used + weight <= budget || used == 0) {
+                    inFlightWeight += weight;
+                    return;
+                }
+                waitMillis = (windowMinute + 1) * 60_000 - now;
+            }
+            if (!deferred) {
+                logger.warning(String.format("Deferring %s (weight %d) for %d ms: estimated used weight %d of %d allowed (limit %d)%s",
+                        endpoint, weight, waitMillis, reportedWeight + inFlightWeight, budget, weightLimit,
+                        now < blockedUntilMillis ? ", rate-limit backoff active" : ""));
+                deferred = true;
+            }
+            wait(Math.max(1, waitMillis));
+        }
+    }
+    /**
+     * Records X-MBX-USED-WEIGHT-1M from the response to a call that acquired callWeight: the weight used by this IP
+     * (orchestrator and bots) in the current minute, which now includes that call.
+     */
+    synchronized void onUsedWeight(int usedWeight1m, int callWeight) {
+        rollWindow(System.currentTimeMillis());
+        // Responses to concurrent calls can arrive out of order, and the count never drops within a window
+        reportedWeight = Math.max(reportedWeight, usedWeight1m);
+        // A call acquired in the previous window was already dropped when the window rolled
+        inFlightWeight = Math.max(0, inFlightWeight - callWeight);
+        if (usedWeight1m > budget) {
+            logger.warning("IP request weight " + usedWeight1m + "/" + weightLimit + " is above the orchestrator's budget of " + budget);
+        }
+    }
+    /**
+     * Records a successful response, which ends any rate-limit escalation.
+     */
+    synchronized void onSuccess() {
+        backoffMillis = 0;
+    }
+    /**
+     * Current estimate of this IP's used weight in the window: the reported weight plus calls still in flight.
+     */
+    synchronized int estimatedWeight() {
+        rollWindow(System.currentTimeMillis());
+        return reportedWeight + inFlightWeight;
+    }
+    /**
+     * Records a 429 or 418 response; retryAfterSeconds &lt;= 0 when the response carried no Retry-After.
+     */
+    synchronized void onRateLimited(int status, long retryAfterSeconds) {
+        long initial = status == 418 ? BANNED_BACKOFF_MILLIS : TOO_MANY_REQUESTS_BACKOFF_MILLIS;
+        backoffMillis = backoffMillis == 0 ? initial : Math.min(MAX_BACKOFF_MILLIS, backoffMillis * 2);
+        long delay = retryAfterSeconds > 0 ? retryAfterSeconds * 1000 : backoffMillis;
+        blockedUntilMillis = Math.max(blockedUntilMillis, System.currentTimeMillis() + delay);
+        logger.severe(String.format("Binance answered %d (%s); pausing market calls for %d s",
+                status, status == 418 ? "IP banned" : "too many requests", delay / 1000));
+        notifyAll();
+    }
+    /**
+     * Time left on the current rate-limit pause, 0 when calls may go out.
+     */
+    synchronized long blockedMillis() {
+        return Math.max(0, blockedUntilMillis - System.currentTimeMillis());
+    }
+    private void rollWindow(long now) {
+        long minute = now / 60_000;
+        if (minute != windowMinute) {
+            windowMinute = minute;
+            reportedWeight = 0;
+            inFlightWeight = 0;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+/**
+ * Long-running reconcile loop: re-ranks on a fixed schedule and diffs the desired top-N against the bot services
+ * currently installed in systemd (per-symbol units or enabled template instances, see {@link UnitLayout}).
+ * Only bots that dropped out are stopped and only newcomers are started; bots that stay in the top-N keep running (and keep their JVM warmup).
+ * {@link #requestCycle()} (e.g. a live rank change) starts the next cycle early, but never sooner than minGapMillis after the last one.
+ */
+final class ReconcileDaemon {
+    private static final Logger logger = Logger.getLogger(ReconcileDaemon.class.getName());
+    private final Callable<List<String>> ranker;
+    private final String workingDir;
+    private final String jarPath;
+    private final String userName;
+    private final UnitLayout layout;
+    private final UnitFileWriter unitWriter;
+    private final CommandExecutor commands;
+    private final long intervalMillis;
+    private final long minGapMillis;
+    private final Semaphore wakeups = new Semaphore(0);
+    ReconcileDaemon(Callable<List<String>> ranker, String workingDir, String jarPath, String userName, UnitLayout layout,
+            UnitFileWriter unitWriter, CommandExecutor commands, long intervalMillis, long minGapMillis) {
+        this.ranker = ranker;
+        this.workingDir = workingDir;
+        this.jarPath = jarPath;
+        this.userName = userName;
+        this.layout = layout;
+        this.unitWriter = unitWriter;
+        this.commands = commands;
+        this.intervalMillis = intervalMillis;
+        this.minGapMillis = Math.min(minGapMillis, intervalMillis);
+    }
+    /**
+     * Asks for a cycle as soon as the minimum gap allows; requests made while a cycle runs are coalesced into one.
+     */
+    void requestCycle() {
+        wakeups.release();
+    }
+    void run() throws InterruptedException {
+        logger.info("Starting reconcile daemon, re-ranking every " + intervalMillis / 60_000 + " minutes");
+        for (long cycle = 1; ; cycle++) {
+            long start = System.nanoTime();
+            try {
+                runCycle(cycle, start);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                // A failed cycle (API outage, parse error...) leaves the running bots untouched until the next one
+                logger.severe("Reconcile cycle " + cycle + " failed after " + (System.nanoTime() - start) / 1_000_000 + " ms: " + e.getMessage());
+            }
+            Thread.sleep(minGapMillis);
+            wakeups.tryAcquire(intervalMillis - minGapMillis, TimeUnit.MILLISECONDS);
+            wakeups.drainPermits();
+        }
+    }
+    private void runCycle(long cycle, long start) throws Exception {
+        List<String> topSymbols = ranker.call();
+        long rankedAt = System.nanoTime();
+        if (topSymbols.isEmpty()) {
+            // An empty ranking is far more likely a bad snapshot than a real market; never tear down the fleet on it
+            logger.warning("Cycle " + cycle + ": ranking returned no symbols, keeping current services");
+            return;
+        }
+        List<String> desired = layout.serviceNames(topSymbols);
+        Set<String> installed = layout.installedServices(unitWriter.dir());
+        List<String> toStop = new ArrayList<>();
+        for (String service : installed) {
+            if (!desired.contains(service)) {
+                toStop.add(service);
+            }
+        }
+        List<String> toStart = new ArrayList<>();
+        List<String> kept = new ArrayList<>();
+        for (String service : desired) {
+            (installed.contains(service) ? kept : toStart).add(service);
+        }
+        SystemdBatch batch = new SystemdBatch(commands);
+        if (!toStop.isEmpty()) {
+            logger.info("Stopping " + toStop.size() + " bot(s) that left the top " + topSymbols.size() + ": " + toStop);
+            layout.remove(toStop, unitWriter.dir(), batch);
+        }
+        // Kept bots are only touched when their unit definition changed (e.g. new jar path)
+        UnitReconciler.Plan plan = UnitReconciler.plan(unitWriter.dir(), layout.renderUnits(topSymbols, workingDir, jarPath, userName));
+        Set<String> toRestart = layout.servicesToRestart(plan, kept);
+        if (!toStart.isEmpty()) {
+            logger.info("Starting " + toStart.size() + " bot(s) that entered the top " + topSymbols.size() + ": " + toStart);
+        }
+        if (!toRestart.isEmpty()) {
+            logger.info("Restarting " + toRestart.size() + " bot(s) with changed unit definitions: " + toRestart);
+        }
+        if (!plan.hasChanges() && layout == UnitLayout.PER_SYMBOL && !toStop.isEmpty()) {
+            // Unit files were only removed; systemd still needs to forget them
+            batch.daemonReload();
+        }
+        UnitReconciler.apply(plan, unitWriter, batch, toStart, toRestart);
+        if (!batch.failed().isEmpty()) {
+            logger.warning("Cycle " + cycle + ": failed operations for " + batch.failed());
+        }
+        long end = System.nanoTime();
+        logger.info(String.format("Cycle %d: %d kept, %d started, %d restarted, %d stopped in %d ms (rank %d ms, apply %d ms, %d commands, %d output lines)",
+                cycle, kept.size() - toRestart.size(), toStart.size(), toRestart.size(), toStop.size(), (end - start) / 1_000_000,
+                (rankedAt - start) / 1_000_000, (end - rankedAt) / 1_000_000, batch.commands(), batch.outputLines()));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Logger;
+/**
+ * Passes calls through to another source and saves every response as dir/&lt;kind&gt;/&lt;epochMillis&gt;.json,
+ * the layout {@link ReplayMarketDataSource} reads back. The ticker24H directory is also valid input for the churn replay.
+ * Files appear atomically, so a replay or churn run over a directory that is still being recorded never sees a partial payload.
+ */
+final class RecordingMarketDataSource implements MarketDataSource {
+    private static final Logger logger = Logger.getLogger(RecordingMarketDataSource.class.getName());
+    static final String EXCHANGE_INFO_DIR = "exchangeInfo";
+    static final String TICKERS_DIR = "ticker24H";
+    private final MarketDataSource delegate;
+    private final Path dir;
+    RecordingMarketDataSource(MarketDataSource delegate, Path dir) throws IOException {
+        this.delegate = delegate;
+        this.dir = dir;
+        Files.createDirectories(dir.resolve(EXCHANGE_INFO_DIR));
+        Files.createDirectories(dir.resolve(TICKERS_DIR));
+    }
+    @Override
+    public String exchangeInfo() throws Exception {
+        return record(EXCHANGE_INFO_DIR, delegate.exchangeInfo());
+    }
+    @Override
+    public String ticker24H() throws Exception {
+        return record(TICKERS_DIR, delegate.ticker24H());
+    }
+    @Override
+    public MarketSnapshot snapshot() throws Exception {
+        MarketSnapshot snapshot = delegate.snapshot();
+        // exchangeInfo first, so replay pairs this ticker snapshot with it (or a later one), never with an earlier one
+        record(EXCHANGE_INFO_DIR, snapshot.exchangeInfoJson());
+        record(TICKERS_DIR, snapshot.tickersJson());
+        return snapshot;
+    }
+    private String record(String kind, String body) throws IOException {
+        long now = System.currentTimeMillis();
+        Path target = dir.resolve(kind).resolve(now + ".json");
+        // Two responses in the same millisecond must not overwrite each other
+        while (Files.exists(target)) {
+            target = dir.resolve(kind).resolve(++now + ".json");
+        }
+        Path tmp = target.resolveSibling("." + target.getFileName() + ".tmp");
+        Files.writeString(tmp, body);
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        logger.fine("Recorded " + kind + " (" + body.length() + " chars) to " + target);
+        return body;
+    }
+}
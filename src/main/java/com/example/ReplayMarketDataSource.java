@@ -0,0 +1,119 @@
+package com.example;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+/**
+ * Serves snapshots captured by {@link RecordingMarketDataSource}, so discovery runs offline and reproduces recorded selections.
+ * Each ticker24H call returns the next recording in time order; exchangeInfo returns the latest recording taken at or
+ * before the current ticker snapshot (or the earliest one). With speed &gt; 0, ticker24H waits until the recorded gap
+ * to the previous snapshot, divided by speed, has passed since that snapshot was served; speed 0 replays as fast as possible.
+ * A cold-start {@link #snapshot()} pairs the two deterministically, whatever the speed.
+ * When the recording is exhausted it starts over if looping, and fails otherwise.
+ */
+final class ReplayMarketDataSource implements MarketDataSource {
+    private static final Logger logger = Logger.getLogger(ReplayMarketDataSource.class.getName());
+    private record Recording(long millis, Path file) {
+    }
+    private final List<Recording> exchangeInfos;
+    private final List<Recording> tickers;
+    private final double speed;
+    private final boolean loop;
+    private int next;
+    private long currentMillis = Long.MIN_VALUE;
+    private long servedAtNanos;
+    ReplayMarketDataSource(Path dir, double speed, boolean loop) throws IOException {
+        this.exchangeInfos = list(dir.resolve(RecordingMarketDataSource.EXCHANGE_INFO_DIR));
+        this.tickers = list(dir.resolve(RecordingMarketDataSource.TICKERS_DIR));
+        if (exchangeInfos.isEmpty() || tickers.isEmpty()) {
+            throw new IOException("Replay directory " + dir + " needs recordings in both " + RecordingMarketDataSource.EXCHANGE_INFO_DIR
+                    + "/ and " + RecordingMarketDataSource.TICKERS_DIR + "/");
+        }
+        this.speed = speed;
+        this.loop = loop;
+        logger.info("Replaying " + tickers.size() + " ticker24H and " + exchangeInfos.size() + " exchangeInfo snapshot(s) from " + dir
+                + (speed > 0 ? " at " + speed + "x" : " as fast as possible"));
+    }
+    @Override
+    public String exchangeInfo() throws IOException {
+        Recording chosen;
+        synchronized (this) {
+            chosen = exchangeInfoAt(currentMillis);
+        }
+        return Files.readString(chosen.file());
+    }
+    @Override
+    public String ticker24H() throws IOException, InterruptedException {
+        return Files.readString(advance().file());
+    }
+    /**
+     * Serves the next ticker snapshot together with the exchangeInfo recorded for it. The two are read in sequence:
+     * run concurrently, whether exchangeInfo saw the previous or the next ticker snapshot would depend on thread timing.
+     */
+    @Override
+    public MarketSnapshot snapshot() throws IOException, InterruptedException {
+        Recording ticker;
+        Recording exchangeInfo;
+        synchronized (this) {
+            ticker = advance();
+            exchangeInfo = exchangeInfoAt(ticker.millis());
+        }
+        long start = System.nanoTime();
+        String exchangeInfoJson = Files.readString(exchangeInfo.file());
+        long exchangeInfoNanos = System.nanoTime() - start;
+        String tickersJson = Files.readString(ticker.file());
+        return new MarketSnapshot(exchangeInfoJson, tickersJson, exchangeInfoNanos / 1_000_000, (System.nanoTime() - start - exchangeInfoNanos) / 1_000_000);
+    }
+    /**
+     * Moves to the next ticker recording, waiting for its due time at speed &gt; 0.
+     */
+    private synchronized Recording advance() throws IOException, InterruptedException {
+        if (next == tickers.size()) {
+            if (!loop) {
+                throw new IOException("Replay exhausted after " + tickers.size() + " ticker24H snapshot(s)");
+            }
+            next = 0;
+            currentMillis = Long.MIN_VALUE;
+        }
+        Recording recording = tickers.get(next++);
+        if (speed > 0 && currentMillis != Long.MIN_VALUE) {
+            long dueNanos = servedAtNanos + (long) ((recording.millis() - currentMillis) * 1_000_000L / speed);
+            long waitMillis = (dueNanos - System.nanoTime()) / 1_000_000;
+            if (waitMillis > 0) {
+                Thread.sleep(waitMillis);
+            }
+        }
+        currentMillis = recording.millis();
+        servedAtNanos = System.nanoTime();
+        return recording;
+    }
+    /**
+     * The latest exchangeInfo recorded at or before millis, or the earliest one.
+     */
+    private Recording exchangeInfoAt(long millis) {
+        Recording chosen = exchangeInfos.get(0);
+        for (Recording recording : exchangeInfos) {
+            if (recording.millis() <= millis) {
+                chosen = recording;
+            }
+        }
+        return chosen;
+    }
+    private static List<Recording> list(Path dir) throws IOException {
+        List<Recording> recordings = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return recordings;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "[0-9]*.json")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                recordings.add(new Recording(Long.parseLong(name.substring(0, name.length() - ".json".length())), file));
+            }
+        }
+        recordings.sort((a, b) -> Long.compare(a.millis(), b.millis()));
+        return recordings;
+    }
+}
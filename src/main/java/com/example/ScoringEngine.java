@@ -0,0 +1,174 @@
+package com.example;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+/**
+ * Scores ticker rows by a weighted sum of metrics over the {@link TickerVolumes} columns, configured as
+ * ranking.score.weights=quoteVolume:1,count:0.5,volatility:0.25,spread:-0.5 (negative weights penalize).
+ * Metrics are quoteVolume and count (log-scaled, both are heavy-tailed), volatility (|priceChangePercent|)
+ * and spread ((ask - bid) / mid). Each metric is standardized over the snapshot so weights are comparable across
+ * metrics; since a common offset never changes the order, that reduces to dividing each weight by the metric's
+ * standard deviation. Scoring is a few flat passes per metric: derive its feature column, accumulate its moments,
+ * then multiply-add it into the score column. Rows missing a weighted metric score NaN, which
+ * {@link TopNSelector} ignores. With the default quoteVolume-only weights the raw volume column is used as-is.
+ * Instances reuse their column buffers and are not thread-safe.
+ */
+final class ScoringEngine {
+    enum Metric {
+        QUOTE_VOLUME("quoteVolume"), COUNT("count"), VOLATILITY("volatility"), SPREAD("spread");
+        final String key;
+        Metric(String key) {
+            this.key = key;
+        }
+        static Metric of(String key) {
+            for (Metric metric : values()) {
+                if (metric.key.equalsIgnoreCase(key)) {
+                    return metric;
+                }
+            }
+            throw new IllegalArgumentException("Unknown ranking metric '" + key + "', expected quoteVolume, count, volatility or spread");
+        }
+    }
+    private final Metric[] metrics;
+    private final double[] weights;
+    private double[][] features;
+    private double[] scores = new double[0];
+    ScoringEngine(Map<Metric, Double> weights) {
+        Map<Metric, Double> used = new EnumMap<>(Metric.class);
+        for (Map.Entry<Metric, Double> weight : weights.entrySet()) {
+            if (weight.getValue() != 0) {
+                used.put(weight.getKey(), weight.getValue());
+            }
+        }
+        if (used.isEmpty()) {
+            throw new IllegalArgumentException("At least one ranking metric needs a non-zero weight");
+        }
+        this.metrics = used.keySet().toArray(new Metric[0]);
+        this.weights = new double[metrics.length];
+        for (int k = 0; k < metrics.length; k++) {
+            this.weights[k] = used.get(metrics[k]);
+        }
+        // One (initially empty) column per metric, so a first call with no rows never indexes past features
+        this.features = new double[metrics.length][0];
+    }
+    /**
+     * Parses "quoteVolume:1,count:0.5"; a metric without ":w" gets weight 1. Null or blank ranks by quote volume alone.
+     */
+    static ScoringEngine fromProperty(String value) {
+        Map<Metric, Double> weights = new EnumMap<>(Metric.class);
+        if (value == null || value.isBlank()) {
+            weights.put(Metric.QUOTE_VOLUME, 1.0);
+        } else {
+            for (String entry : value.split(",")) {
+                String[] parts = entry.trim().split(":");
+                if (parts[0].isBlank()) {
+                    continue;
+                }
+                weights.put(Metric.of(parts[0].trim()), parts.length > 1 ? Double.parseDouble(parts[1].trim()) : 1.0);
+            }
+        }
+        return new ScoringEngine(weights);
+    }
+    /**
+     * True when the ranking is plain quote volume, i.e. the only weighted metric is a positive quoteVolume.
+     */
+    boolean isQuoteVolumeOnly() {
+        return metrics.length == 1 && metrics[0] == Metric.QUOTE_VOLUME && weights[0] > 0;
+    }
+    /**
+     * Name of the score for log lines: "quoteVolume" for plain volume ranking, "score" otherwise.
+     */
+    String label() {
+        return isQuoteVolumeOnly() ? "quoteVolume" : "score";
+    }
+    /**
+     * Returns the score column for rows [0, tickers.size()), higher is better. The array is the volume column itself
+     * for quote-volume-only ranking and a reused buffer otherwise; either way it is only valid until the next call.
+     */
+    double[] score(TickerVolumes tickers) {
+        int size = tickers.size();
+        if (isQuoteVolumeOnly()) {
+            return tickers.quoteVolumes();
+        }
+        if (scores.length < size) {
+            scores = new double[size];
+            features = new double[metrics.length][size];
+        }
+        Arrays.fill(scores, 0, size, 0.0);
+        for (int k = 0; k < metrics.length; k++) {
+            double[] feature = features[k];
+            double scale = weights[k] / extract(metrics[k], tickers, feature, size);
+            if (Double.isNaN(scale) || Double.isInfinite(scale)) {
+                // A constant (or entirely missing) metric cannot separate rows; it still excludes rows that lack it
+                scale = 0;
+            }
+            // Plain multiply-add over primitive columns: C2 unrolls and vectorizes this loop. NaN features propagate.
+            for (int row = 0; row < size; row++) {
+                scores[row] += scale * feature[row];
+            }
+        }
+        return scores;
+    }
+    /**
+     * Fills feature[0..size) with the metric's per-row value and returns its standard deviation over the non-NaN rows.
+     */
+    private static double extract(Metric metric, TickerVolumes tickers, double[] feature, int size) {
+        switch (metric) {
+            case QUOTE_VOLUME -> {
+                // Math.log is an intrinsic, log1p is not; the +1 only keeps zero volumes finite
+                double[] quoteVolumes = tickers.quoteVolumes();
+                for (int row = 0; row < size; row++) {
+                    feature[row] = Math.log(quoteVolumes[row] + 1);
+                }
+            }
+            case COUNT -> {
+                double[] counts = tickers.counts();
+                for (int row = 0; row < size; row++) {
+                    feature[row] = Math.log(counts[row] + 1);
+                }
+            }
+            case VOLATILITY -> {
+                double[] changes = tickers.priceChangePercents();
+                for (int row = 0; row < size; row++) {
+                    feature[row] = Math.abs(changes[row]);
+                }
+            }
+            case SPREAD -> {
+                double[] bids = tickers.bidPrices();
+                double[] asks = tickers.askPrices();
+                for (int row = 0; row < size; row++) {
+                    double bid = bids[row];
+                    double ask = asks[row];
+                    // No book (zero bid or ask) has no meaningful spread
+                    feature[row] = bid > 0 && ask >= bid ? 2 * (ask - bid) / (ask + bid) : Double.NaN;
+                }
+            }
+            default -> throw new IllegalStateException("Unhandled metric " + metric);
+        }
+        // Population standard deviation; features are logs, percents or ratios, so sum of squares is precise enough
+        int n = 0;
+        double sum = 0;
+        double sumSquares = 0;
+        for (int row = 0; row < size; row++) {
+            double v = feature[row];
+            if (v == v) {
+                n++;
+                sum += v;
+                sumSquares += v * v;
+            }
+        }
+        if (n == 0) {
+            return Double.NaN;
+        }
+        double mean = sum / n;
+        return Math.sqrt(Math.max(0, sumSquares / n - mean * mean));
+    }
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        for (int k = 0; k < metrics.length; k++) {
+            out.append(k == 0 ? "" : ",").append(metrics[k].key).append(':').append(weights[k]);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,156 @@
+package com.example;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Logger;
+/**
+ * Batches per-unit service operations into as few process spawns as possible:
+ * one "systemctl enable --now a.service b.service ...", one "systemctl disable --now ...", one "rm -f ...".
+ * Arguments are chunked so a single command line stays well below the kernel argv limit, and the chunks of
+ * one operation run in parallel on the {@link CommandExecutor}. Operations themselves run in call order.
+ * If a batched command fails, its chunk is retried unit by unit (again in parallel) so one broken unit cannot
+ * block the rest, matching the best-effort behaviour of the old per-unit loops.
+ * Keeps counters of processes spawned and output lines logged for reporting; not thread-safe.
+ */
+final class SystemdBatch {
+    private static final Logger logger = Logger.getLogger(SystemdBatch.class.getName());
+    // Conservative budget: Linux allows 128 KiB per single argument and ~2 MiB overall, shared with the environment
+    static final int MAX_ARGV_CHARS = 64 * 1024;
+    static final int MAX_ARGS_PER_COMMAND = 1000;
+    private final Runner runner;
+    private int commands;
+    private int outputLines;
+    private final List<String> failed = new ArrayList<>();
+    /**
+     * Runs a list of commands and returns one result per command, in order; {@link CommandExecutor#runAll} in production.
+     */
+    interface Runner {
+        List<ProcessRunner.Result> runAll(List<List<String>> commands);
+    }
+    SystemdBatch(CommandExecutor executor) {
+        this(executor::runAll);
+    }
+    SystemdBatch(Runner runner) {
+        this.runner = runner;
+    }
+    /**
+     * Enables and starts all units (systemctl enable --now).
+     */
+    void enableNow(Collection<String> serviceNames) {
+        run(List.of("systemctl", "enable", "--now"), serviceNames, "start");
+    }
+    void stop(Collection<String> serviceNames) {
+        run(List.of("systemctl", "stop"), serviceNames, "stop");
+    }
+    void restart(Collection<String> serviceNames) {
+        run(List.of("systemctl", "restart"), serviceNames, "restart");
+    }
+    /**
+     * Stops and disables all units (systemctl disable --now).
+     */
+    void disableNow(Collection<String> serviceNames) {
+        run(List.of("systemctl", "disable", "--now"), serviceNames, "stop/disable");
+    }
+    void remove(Collection<File> files) {
+        run(List.of("rm", "-f"), paths(files), "remove");
+    }
+    boolean daemonReload() {
+        ProcessRunner.Result result = record(runner.runAll(List.of(List.of("systemctl", "daemon-reload"))).get(0));
+        if (!result.ok()) {
+            logger.warning("Failed to reload systemd daemon: " + result.error() + output(result));
+        }
+        return result.ok();
+    }
+    int commands() {
+        return commands;
+    }
+    int outputLines() {
+        return outputLines;
+    }
+    /**
+     * Arguments (unit names or paths) whose operation failed even when retried individually.
+     */
+    List<String> failed() {
+        return failed;
+    }
+    private void run(List<String> prefix, Collection<String> args, String action) {
+        if (args.isEmpty()) {
+            return;
+        }
+        int fixedChars = chars(prefix);
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        int chunkChars = fixedChars;
+        for (String arg : args) {
+            if (!chunk.isEmpty() && (chunkChars + arg.length() + 1 > MAX_ARGV_CHARS || chunk.size() >= MAX_ARGS_PER_COMMAND)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkChars = fixedChars;
+            }
+            chunk.add(arg);
+            chunkChars += arg.length() + 1;
+        }
+        chunks.add(chunk);
+        List<List<String>> batched = new ArrayList<>(chunks.size());
+        for (List<String> c : chunks) {
+            batched.add(command(prefix, c));
+        }
+        List<ProcessRunner.Result> results = runner.runAll(batched);
+        List<String> retry = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (!record(results.get(i)).ok()) {
+                List<String> failedChunk = chunks.get(i);
+                if (failedChunk.size() > 1) {
+                    logger.warning("Batched " + action + " of " + failedChunk.size() + " units failed; retrying one by one");
+                }
+                retry.addAll(failedChunk);
+            }
+        }
+        if (retry.isEmpty()) {
+            return;
+        }
+        List<List<String>> single = new ArrayList<>(retry.size());
+        for (String arg : retry) {
+            single.add(command(prefix, List.of(arg)));
+        }
+        List<ProcessRunner.Result> retried = runner.runAll(single);
+        for (int i = 0; i < retried.size(); i++) {
+            ProcessRunner.Result result = record(retried.get(i));
+            if (!result.ok()) {
+                logger.warning("Failed to " + action + " " + retry.get(i) + ": " + result.error() + output(result));
+                failed.add(retry.get(i));
+            }
+        }
+    }
+    private ProcessRunner.Result record(ProcessRunner.Result result) {
+        commands++;
+        outputLines += result.outputLines();
+        return result;
+    }
+    private static String output(ProcessRunner.Result result) {
+        return result.outputTail().isEmpty() ? "" : "\n" + String.join("\n", result.outputTail());
+    }
+    private static List<String> command(List<String> prefix, List<String> args) {
+        List<String> command = new ArrayList<>(prefix.size() + args.size());
+        command.addAll(prefix);
+        command.addAll(args);
+        return command;
+    }
+    private static List<String> paths(Collection<File> files) {
+        String[] paths = new String[files.size()];
+        int i = 0;
+        for (File file : files) {
+            paths[i++] = file.getAbsolutePath();
+        }
+        return Arrays.asList(paths);
+    }
+    private static int chars(List<String> args) {
+        int total = 0;
+        for (String arg : args) {
+            total += arg.length() + 1;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.function.Predicate;
+/**
+ * Streaming reader for the all-symbols ticker24H response.
+ * Walks the JSON token stream and keeps only the ranking fields (symbol, quoteVolume, count, priceChangePercent,
+ * bidPrice, askPrice) of the requested symbols; every other field is skipped without being materialized into maps.
+ */
+final class TickerStreamParser {
+    private TickerStreamParser() {
+    }
+    static TickerVolumes parse(String json, Set<String> wantedSymbols) throws IOException {
+        try (JsonParser parser = MarketJson.factory().createParser(json)) {
+            return parse(parser, wantedSymbols);
+        }
+    }
+    static TickerVolumes parse(InputStream in, Set<String> wantedSymbols) throws IOException {
+        try (JsonParser parser = MarketJson.factory().createParser(in)) {
+            return parse(parser, wantedSymbols);
+        }
+    }
+    static TickerVolumes parse(JsonParser parser, Set<String> wantedSymbols) throws IOException {
+        return parse(parser, wantedSymbols::contains, wantedSymbols.size());
+    }
+    /**
+     * Variant for callers that filter by rule rather than by a known symbol set (e.g. replaying recorded snapshots).
+     */
+    static TickerVolumes parse(String json, Predicate<String> wanted) throws IOException {
+        try (JsonParser parser = MarketJson.factory().createParser(json)) {
+            return parse(parser, wanted, 0);
+        }
+    }
+    private static TickerVolumes parse(JsonParser parser, Predicate<String> wanted, int expectedSize) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Expected ticker24H array but found " + parser.currentToken());
+        }
+        TickerVolumes result = new TickerVolumes(expectedSize);
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new IOException("Unexpected end of ticker24H payload");
+            }
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            String symbol = null;
+            boolean wantedRow = true;
+            double quoteVolume = Double.NaN;
+            double count = Double.NaN;
+            double priceChangePercent = Double.NaN;
+            double bidPrice = Double.NaN;
+            double askPrice = Double.NaN;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("symbol".equals(field)) {
+                    symbol = parser.getText();
+                    // Binance sends the symbol first, so the numbers of unwanted rows are never converted
+                    wantedRow = wanted.test(symbol);
+                } else if (!wantedRow) {
+                    parser.skipChildren();
+                } else if ("quoteVolume".equals(field)) {
+                    // Binance sends decimals as strings; getValueAsDouble handles both string and number tokens
+                    quoteVolume = parser.getValueAsDouble(Double.NaN);
+                } else if ("count".equals(field)) {
+                    count = parser.getValueAsDouble(Double.NaN);
+                } else if ("priceChangePercent".equals(field)) {
+                    priceChangePercent = parser.getValueAsDouble(Double.NaN);
+                } else if ("bidPrice".equals(field)) {
+                    bidPrice = parser.getValueAsDouble(Double.NaN);
+                } else if ("askPrice".equals(field)) {
+                    askPrice = parser.getValueAsDouble(Double.NaN);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (symbol != null && wantedRow && !Double.isNaN(quoteVolume)) {
+                result.add(symbol, quoteVolume, count, priceChangePercent, bidPrice, askPrice);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example;
+import java.util.Arrays;
+/**
+ * Columnar holder for the ticker fields used by ranking: one symbol per row plus struct-of-arrays primitive columns
+ * for quote volume, trade count, price change percent and best bid/ask. Rows are appended by {@link TickerStreamParser};
+ * every column is a plain double[] so ranking and {@link ScoringEngine} never box or re-parse.
+ * Rows added from sources without the extra fields (e.g. the mini-ticker stream) carry NaN in those columns.
+ */
+final class TickerVolumes {
+    private String[] symbols;
+    private double[] quoteVolumes;
+    private double[] counts;
+    private double[] priceChangePercents;
+    private double[] bidPrices;
+    private double[] askPrices;
+    private int size;
+    private boolean hasMetrics;
+    TickerVolumes(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        symbols = new String[capacity];
+        quoteVolumes = new double[capacity];
+        counts = new double[capacity];
+        priceChangePercents = new double[capacity];
+        bidPrices = new double[capacity];
+        askPrices = new double[capacity];
+    }
+    void add(String symbol, double quoteVolume) {
+        add(symbol, quoteVolume, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+    }
+    void add(String symbol, double quoteVolume, double count, double priceChangePercent, double bidPrice, double askPrice) {
+        if (size == symbols.length) {
+            int capacity = size + (size >> 1);
+            symbols = Arrays.copyOf(symbols, capacity);
+            quoteVolumes = Arrays.copyOf(quoteVolumes, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            priceChangePercents = Arrays.copyOf(priceChangePercents, capacity);
+            bidPrices = Arrays.copyOf(bidPrices, capacity);
+            askPrices = Arrays.copyOf(askPrices, capacity);
+        }
+        symbols[size] = symbol;
+        quoteVolumes[size] = quoteVolume;
+        counts[size] = count;
+        priceChangePercents[size] = priceChangePercent;
+        bidPrices[size] = bidPrice;
+        askPrices[size] = askPrice;
+        hasMetrics |= !Double.isNaN(count);
+        size++;
+    }
+    /**
+     * Appends a copy of another snapshot's row, all columns included.
+     */
+    void add(TickerVolumes from, int row) {
+        add(from.symbols[row], from.quoteVolumes[row], from.counts[row], from.priceChangePercents[row], from.bidPrices[row], from.askPrices[row]);
+    }
+    int size() {
+        return size;
+    }
+    /**
+     * True if any row carries the full ticker24H fields (count, price change, bid/ask), not just the quote volume.
+     */
+    boolean hasMetrics() {
+        return hasMetrics;
+    }
+    String symbol(int index) {
+        return symbols[index];
+    }
+    double quoteVolume(int index) {
+        return quoteVolumes[index];
+    }
+    // Backing columns, valid for indices [0, size()); exposed for allocation-free ranking and scoring
+    double[] quoteVolumes() {
+        return quoteVolumes;
+    }
+    double[] counts() {
+        return counts;
+    }
+    double[] priceChangePercents() {
+        return priceChangePercents;
+    }
+    double[] bidPrices() {
+        return bidPrices;
+    }
+    double[] askPrices() {
+        return askPrices;
+    }
+}
@@ -0,0 +1,259 @@
+package com.example;
+import java.util.Arrays;
+/**
+ * Incrementally maintained top-N over keys that change one at a time (e.g. per-symbol volumes from a stream).
+ * Entries are int ids with a primitive double key. The N best sit in an indexed min-heap (root = weakest member)
+ * and all others in an indexed max-heap (root = strongest outsider), with each id's heap position tracked, so
+ * update and remove cost O(log n) and {@link #inTop(int)} is O(1). A change of membership moves at most one
+ * id across the boundary per update and is reported to the listener as left/entered.
+ * Ties are broken by id (lower id ranks higher). Not thread-safe.
+ */
+final class TopNIndex {
+    interface Listener {
+        void entered(int id);
+        void left(int id);
+    }
+    private static final int ABSENT = -1;
+    private final int n;
+    private final Listener listener;
+    private double[] keys;
+    // Position of each id inside its heap, ABSENT when the id is not indexed
+    private int[] positions;
+    private boolean[] inTop;
+    private final int[] top;
+    private int topSize;
+    private int[] rest;
+    private int restSize;
+    TopNIndex(int n, int expectedIds, Listener listener) {
+        if (n < 0) {
+            throw new IllegalArgumentException("N must be >= 0 but was " + n);
+        }
+        this.n = n;
+        this.listener = listener;
+        int capacity = Math.max(16, expectedIds);
+        keys = new double[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, ABSENT);
+        inTop = new boolean[capacity];
+        top = new int[n];
+        rest = new int[capacity];
+    }
+    /**
+     * Inserts the id or changes its key. NaN keys are not ranked and remove the id.
+     */
+    void update(int id, double key) {
+        if (Double.isNaN(key)) {
+            remove(id);
+            return;
+        }
+        ensureCapacity(id + 1);
+        double old = keys[id];
+        keys[id] = key;
+        int pos = positions[id];
+        if (pos == ABSENT) {
+            rest[restSize] = id;
+            positions[id] = restSize;
+            siftUpRest(restSize++);
+        } else if (inTop[id]) {
+            // Min-heap: a higher key can only move towards the leaves
+            if (key > old) {
+                siftDownTop(pos);
+            } else {
+                siftUpTop(pos);
+            }
+        } else if (key > old) {
+            siftUpRest(pos);
+        } else {
+            siftDownRest(pos);
+        }
+        rebalance();
+    }
+    void remove(int id) {
+        if (id >= positions.length || positions[id] == ABSENT) {
+            return;
+        }
+        int pos = positions[id];
+        positions[id] = ABSENT;
+        if (inTop[id]) {
+            inTop[id] = false;
+            int last = top[--topSize];
+            if (pos < topSize) {
+                top[pos] = last;
+                positions[last] = pos;
+                siftDownTop(pos);
+                siftUpTop(positions[last]);
+            }
+            listener.left(id);
+        } else {
+            int last = rest[--restSize];
+            if (pos < restSize) {
+                rest[pos] = last;
+                positions[last] = pos;
+                siftDownRest(pos);
+                siftUpRest(positions[last]);
+            }
+        }
+        rebalance();
+    }
+    boolean inTop(int id) {
+        return id < inTop.length && inTop[id];
+    }
+    boolean contains(int id) {
+        return id < positions.length && positions[id] != ABSENT;
+    }
+    double key(int id) {
+        return keys[id];
+    }
+    int size() {
+        return topSize + restSize;
+    }
+    /**
+     * Ids currently in the top N, best first. Only the N members are sorted.
+     */
+    int[] topIds() {
+        int[] sorted = Arrays.copyOf(top, topSize);
+        // Insertion sort: N is small and this avoids boxing
+        for (int i = 1; i < sorted.length; i++) {
+            int id = sorted[i];
+            int j = i - 1;
+            while (j >= 0 && ranksAbove(id, sorted[j])) {
+                sorted[j + 1] = sorted[j];
+                j--;
+            }
+            sorted[j + 1] = id;
+        }
+        return sorted;
+    }
+    private void rebalance() {
+        while (topSize < n && restSize > 0) {
+            int id = popRest();
+            pushTop(id);
+            listener.entered(id);
+        }
+        // A single key change leaves at most one pair on the wrong side of the boundary
+        while (topSize > 0 && restSize > 0 && ranksAbove(rest[0], top[0])) {
+            int in = popRest();
+            int out = popTop();
+            pushTop(in);
+            pushRest(out);
+            listener.left(out);
+            listener.entered(in);
+        }
+    }
+    // True if id a ranks strictly above id b: larger key, or equal key and lower id
+    private boolean ranksAbove(int a, int b) {
+        double ka = keys[a];
+        double kb = keys[b];
+        return ka > kb || (ka == kb && a < b);
+    }
+    private int popRest() {
+        int id = rest[0];
+        int last = rest[--restSize];
+        if (restSize > 0) {
+            rest[0] = last;
+            positions[last] = 0;
+            siftDownRest(0);
+        }
+        positions[id] = ABSENT;
+        return id;
+    }
+    private int popTop() {
+        int id = top[0];
+        int last = top[--topSize];
+        if (topSize > 0) {
+            top[0] = last;
+            positions[last] = 0;
+            siftDownTop(0);
+        }
+        positions[id] = ABSENT;
+        inTop[id] = false;
+        return id;
+    }
+    private void pushTop(int id) {
+        top[topSize] = id;
+        positions[id] = topSize;
+        inTop[id] = true;
+        siftUpTop(topSize++);
+    }
+    private void pushRest(int id) {
+        rest[restSize] = id;
+        positions[id] = restSize;
+        siftUpRest(restSize++);
+    }
+    private void siftUpTop(int pos) {
+        int id = top[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!ranksAbove(top[parent], id)) {
+                break;
+            }
+            move(top, parent, pos);
+            pos = parent;
+        }
+        top[pos] = id;
+        positions[id] = pos;
+    }
+    private void siftDownTop(int pos) {
+        int id = top[pos];
+        int half = topSize >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            if (child + 1 < topSize && ranksAbove(top[child], top[child + 1])) {
+                child++;
+            }
+            if (!ranksAbove(id, top[child])) {
+                break;
+            }
+            move(top, child, pos);
+            pos = child;
+        }
+        top[pos] = id;
+        positions[id] = pos;
+    }
+    private void siftUpRest(int pos) {
+        int id = rest[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!ranksAbove(id, rest[parent])) {
+                break;
+            }
+            move(rest, parent, pos);
+            pos = parent;
+        }
+        rest[pos] = id;
+        positions[id] = pos;
+    }
+    private void siftDownRest(int pos) {
+        int id = rest[pos];
+        int half = restSize >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            if (child + 1 < restSize && ranksAbove(rest[child + 1], rest[child])) {
+                child++;
+            }
+            if (!ranksAbove(rest[child], id)) {
+                break;
+            }
+            move(rest, child, pos);
+            pos = child;
+        }
+        rest[pos] = id;
+        positions[id] = pos;
+    }
+    private void move(int[] heap, int from, int to) {
+        heap[to] = heap[from];
+        positions[heap[to]] = to;
+    }
+    private void ensureCapacity(int ids) {
+        if (ids <= keys.length) {
+            return;
+        }
+        int capacity = Math.max(ids, keys.length + (keys.length >> 1));
+        keys = Arrays.copyOf(keys, capacity);
+        int old = positions.length;
+        positions = Arrays.copyOf(positions, capacity);
+        Arrays.fill(positions, old, capacity, ABSENT);
+        inTop = Arrays.copyOf(inTop, capacity);
+        rest = Arrays.copyOf(rest, capacity);
+    }
+}
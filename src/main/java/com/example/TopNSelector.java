@@ -0,0 +1,97 @@
+package com.example;
+/**
+ * Selects the indices of the N largest keys from a primitive double column.
+ * Keeps a size-N min-heap of row indices, so a pass over n rows costs O(n log N) comparisons
+ * on already-parsed doubles with no boxing. Ties are broken by row order, matching a stable descending sort.
+ * Instances reuse their heap buffer and are not thread-safe. The orchestrator ranks score columns through
+ * {@link #select}; {@link #selectSymbols} (plain quote-volume ranking) is kept for the discovery benchmarks.
+ */
+final class TopNSelector {
+    private final int n;
+    private final int[] heap;
+    private double[] keys;
+    TopNSelector(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("N must be >= 0 but was " + n);
+        }
+        this.n = n;
+        this.heap = new int[n];
+    }
+    /**
+     * Returns the row indices of the top N keys among keys[0..size), highest first. NaN keys are ignored.
+     */
+    int[] select(double[] keys, int size) {
+        this.keys = keys;
+        int count = 0;
+        try {
+            for (int row = 0; row < size; row++) {
+                if (Double.isNaN(keys[row])) {
+                    continue;
+                }
+                if (count < n) {
+                    heap[count] = row;
+                    siftUp(count++);
+                } else if (n > 0 && ranksBelow(heap[0], row)) {
+                    heap[0] = row;
+                    siftDown(0, count);
+                }
+            }
+            // Drain the heap: the root is always the weakest remaining row, so fill from the back
+            int[] ranked = new int[count];
+            for (int last = count - 1; last >= 0; last--) {
+                ranked[last] = heap[0];
+                heap[0] = heap[last];
+                siftDown(0, last);
+            }
+            return ranked;
+        } finally {
+            this.keys = null;
+        }
+    }
+    /**
+     * Top N symbols of a parsed ticker snapshot, highest quote volume first. Used by the benchmarks only.
+     */
+    String[] selectSymbols(TickerVolumes tickers) {
+        int[] rows = select(tickers.quoteVolumes(), tickers.size());
+        String[] symbols = new String[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            symbols[i] = tickers.symbol(rows[i]);
+        }
+        return symbols;
+    }
+    // True if row a ranks strictly below row b: smaller key, or equal key and later row
+    private boolean ranksBelow(int a, int b) {
+        double ka = keys[a];
+        double kb = keys[b];
+        return ka < kb || (ka == kb && a > b);
+    }
+    private void siftUp(int pos) {
+        int row = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!ranksBelow(row, heap[parent])) {
+                break;
+            }
+            heap[pos] = heap[parent];
+            pos = parent;
+        }
+        heap[pos] = row;
+    }
+    private void siftDown(int pos, int count) {
+        int row = heap[pos];
+        int half = count >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < count && ranksBelow(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!ranksBelow(heap[child], row)) {
+                break;
+            }
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = row;
+    }
+}
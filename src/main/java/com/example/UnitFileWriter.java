@@ -0,0 +1,55 @@
+package com.example;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+/**
+ * Writes unit files into a target directory (normally /etc/systemd/system) without spawning cp:
+ * each file is written under a hidden temp name and atomically renamed into place, so systemd never
+ * sees a half-written unit. The directory itself is fsynced once by {@link #sync()} after a batch of writes.
+ */
+final class UnitFileWriter {
+    private static final Logger logger = Logger.getLogger(UnitFileWriter.class.getName());
+    private final Path dir;
+    private int pending;
+    UnitFileWriter(Path dir) {
+        this.dir = dir;
+    }
+    Path dir() {
+        return dir;
+    }
+    Path write(String fileName, String content) throws IOException {
+        Files.createDirectories(dir);
+        Path target = dir.resolve(fileName);
+        // Leading dot and .tmp suffix: never matches the tradebot_*.service patterns or a systemd unit name
+        Path tmp = dir.resolve("." + fileName + ".tmp");
+        Files.write(tmp, content.getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        pending++;
+        return target;
+    }
+    /**
+     * Flushes the directory entries of all renames since the last sync with a single fsync.
+     */
+    void sync() throws IOException {
+        if (pending == 0) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Some filesystems refuse to open or fsync directories; the renames themselves are still atomic
+            logger.warning("Could not fsync " + dir + ": " + e.getMessage());
+        }
+        pending = 0;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+/**
+ * How bots map onto systemd units.
+ * PER_SYMBOL renders one tradebot_&lt;symbol&gt;.service file per bot.
+ * TEMPLATE renders a single tradebot@.service template and runs bots as instances (tradebot@BTCUSDC.service),
+ * so adding bots costs no extra unit files and no extra daemon-reloads.
+ * Selected with service.layout=per-symbol|template in config.properties.
+ */
+enum UnitLayout {
+    PER_SYMBOL {
+        @Override
+        String serviceName(String symbol) {
+            return "tradebot_" + symbol.toLowerCase() + ".service";
+        }
+        @Override
+        Map<String, String> renderUnits(List<String> symbols, String workingDir, String jarPath, String userName) {
+            Map<String, String> units = new LinkedHashMap<>();
+            for (String symbol : symbols) {
+                units.put(serviceName(symbol), BotOrchestrator.renderServiceFile(symbol, workingDir, jarPath, userName));
+            }
+            return units;
+        }
+        @Override
+        Set<String> installedServices(Path unitDir) {
+            return listUnits(unitDir.toFile(), "tradebot_");
+        }
+        @Override
+        Set<String> servicesToRestart(UnitReconciler.Plan plan, Collection<String> kept) {
+            Set<String> restart = new LinkedHashSet<>(plan.updated().keySet());
+            restart.retainAll(kept);
+            return restart;
+        }
+        @Override
+        void remove(Collection<String> services, Path unitDir, SystemdBatch batch) {
+            batch.disableNow(services);
+            List<File> files = new ArrayList<>(services.size());
+            for (String service : services) {
+                files.add(unitDir.resolve(service).toFile());
+            }
+            batch.remove(files);
+        }
+    },
+    TEMPLATE {
+        @Override
+        String serviceName(String symbol) {
+            // Instance names are case-sensitive and %i is passed verbatim to the bot, so keep the exchange symbol as is
+            return "tradebot@" + symbol + ".service";
+        }
+        @Override
+        Map<String, String> renderUnits(List<String> symbols, String workingDir, String jarPath, String userName) {
+            Map<String, String> units = new LinkedHashMap<>();
+            units.put(TEMPLATE_UNIT, BotOrchestrator.renderServiceFile("%i", workingDir, jarPath, userName));
+            return units;
+        }
+        @Override
+        Set<String> installedServices(Path unitDir) {
+            // Enabled instances exist only as symlinks in the target's wants directory
+            return listUnits(unitDir.resolve(WANTS_DIR).toFile(), "tradebot@");
+        }
+        @Override
+        Set<String> servicesToRestart(UnitReconciler.Plan plan, Collection<String> kept) {
+            return plan.updated().isEmpty() ? new LinkedHashSet<>() : new LinkedHashSet<>(kept);
+        }
+        @Override
+        void remove(Collection<String> services, Path unitDir, SystemdBatch batch) {
+            batch.disableNow(services);
+        }
+    };
+    static final String TEMPLATE_UNIT = "tradebot@.service";
+    static final String WANTS_DIR = "multi-user.target.wants";
+    abstract String serviceName(String symbol);
+    /**
+     * Unit files (file name to content) needed to run the given symbols.
+     */
+    abstract Map<String, String> renderUnits(List<String> symbols, String workingDir, String jarPath, String userName);
+    /**
+     * Bot services currently installed (and enabled) under the unit directory.
+     */
+    abstract Set<String> installedServices(Path unitDir);
+    /**
+     * Which of the kept services must be restarted to pick up the planned unit file changes.
+     */
+    abstract Set<String> servicesToRestart(UnitReconciler.Plan plan, Collection<String> kept);
+    /**
+     * Stops and disables the given services and removes any unit files that belong only to them.
+     */
+    abstract void remove(Collection<String> services, Path unitDir, SystemdBatch batch);
+    List<String> serviceNames(List<String> symbols) {
+        List<String> names = new ArrayList<>(symbols.size());
+        for (String symbol : symbols) {
+            names.add(serviceName(symbol));
+        }
+        return names;
+    }
+    static UnitLayout fromProperty(String value) {
+        if (value == null || value.isEmpty() || "per-symbol".equalsIgnoreCase(value)) {
+            return PER_SYMBOL;
+        }
+        if ("template".equalsIgnoreCase(value)) {
+            return TEMPLATE;
+        }
+        throw new IllegalArgumentException("Unknown service.layout '" + value + "', expected per-symbol or template");
+    }
+    private static Set<String> listUnits(File dir, String prefix) {
+        Set<String> units = new LinkedHashSet<>();
+        String[] names = dir.list((d, name) -> name.startsWith(prefix) && name.endsWith(".service") && !name.equals(TEMPLATE_UNIT));
+        if (names != null) {
+            for (String name : names) {
+                units.add(name);
+            }
+        }
+        return units;
+    }
+}
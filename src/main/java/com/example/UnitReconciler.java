@@ -0,0 +1,88 @@
+package com.example;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+/**
+ * Plans and applies unit file changes by content hash. Each rendered unit is hashed (SHA-256) and compared
+ * with the file already in the target directory: identical units are not rewritten, daemon-reload only runs
+ * when at least one unit was written, and only services whose definition changed are restarted
+ * (which services those are depends on the {@link UnitLayout}).
+ */
+final class UnitReconciler {
+    private static final Logger logger = Logger.getLogger(UnitReconciler.class.getName());
+    /**
+     * Rendered units (service name to content) split by what is on disk: new files, changed files and identical files.
+     */
+    record Plan(Map<String, String> created, Map<String, String> updated, List<String> unchanged, long planNanos) {
+        boolean hasChanges() {
+            return !created.isEmpty() || !updated.isEmpty();
+        }
+    }
+    private UnitReconciler() {
+    }
+    static Plan plan(Path dir, Map<String, String> desiredUnits) throws IOException {
+        long start = System.nanoTime();
+        Map<String, String> created = new LinkedHashMap<>();
+        Map<String, String> updated = new LinkedHashMap<>();
+        List<String> unchanged = new ArrayList<>();
+        for (Map.Entry<String, String> unit : desiredUnits.entrySet()) {
+            Path existing = dir.resolve(unit.getKey());
+            if (!Files.isRegularFile(existing)) {
+                created.put(unit.getKey(), unit.getValue());
+            } else if (MessageDigest.isEqual(sha256(Files.readAllBytes(existing)), sha256(unit.getValue().getBytes(StandardCharsets.UTF_8)))) {
+                unchanged.add(unit.getKey());
+            } else {
+                updated.put(unit.getKey(), unit.getValue());
+            }
+        }
+        return new Plan(created, updated, unchanged, System.nanoTime() - start);
+    }
+    /**
+     * Writes only created and updated units. Without a batch (non-root) nothing is handed to systemd.
+     * With a batch: daemon-reload if anything was written, then restart for services that must pick up
+     * a changed definition, then enable --now for services that must be running.
+     */
+    static void apply(Plan plan, UnitFileWriter writer, SystemdBatch batch, Collection<String> toStart, Collection<String> toRestart)
+            throws IOException {
+        long t0 = System.nanoTime();
+        for (Map<String, String> units : List.of(plan.created(), plan.updated())) {
+            for (Map.Entry<String, String> unit : units.entrySet()) {
+                logger.info("Generated service file: " + writer.write(unit.getKey(), unit.getValue()));
+            }
+        }
+        writer.sync();
+        long t1 = System.nanoTime();
+        long t2 = t1;
+        if (batch != null) {
+            if (plan.hasChanges()) {
+                if (!batch.daemonReload()) {
+                    throw new IOException("systemctl daemon-reload failed");
+                }
+            }
+            t2 = System.nanoTime();
+            // Restart first: it also starts stopped units with the new definition, so enable --now is then a no-op for them
+            batch.restart(toRestart);
+            batch.enableNow(toStart);
+        }
+        long t3 = System.nanoTime();
+        logger.info(String.format("Units: %d created, %d updated, %d unchanged; %d to start, %d to restart (plan %d ms, write %d ms, reload %d ms, start %d ms)",
+                plan.created().size(), plan.updated().size(), plan.unchanged().size(), toStart.size(), toRestart.size(),
+                plan.planNanos() / 1_000_000, (t1 - t0) / 1_000_000, (t2 - t1) / 1_000_000, (t3 - t2) / 1_000_000));
+    }
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
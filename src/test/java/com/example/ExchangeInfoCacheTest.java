@@ -0,0 +1,102 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+class ExchangeInfoCacheTest {
+    private static final List<String> QUOTES = List.of("USDC", "USDT");
+    private static final Map<String, String> ACTIVE = Map.of("BTCUSDC", "USDC", "ETHUSDC", "USDC", "BTCUSDT", "USDT");
+    private static final String REFRESHED = "{\"symbols\":["
+            + "{\"symbol\":\"BTCUSDC\",\"status\":\"TRADING\",\"quoteAsset\":\"USDC\"},"
+            + "{\"symbol\":\"SOLUSDC\",\"status\":\"TRADING\",\"quoteAsset\":\"USDC\"},"
+            + "{\"symbol\":\"ETHUSDC\",\"status\":\"BREAK\",\"quoteAsset\":\"USDC\"}]}";
+    @TempDir
+    Path dir;
+    @Test
+    void freshSnapshotRoundTrips() throws IOException {
+        ExchangeInfoCache cache = cache(60_000);
+        cache.store(ACTIVE, null);
+        ExchangeInfoCache.Snapshot loaded = cache.load();
+        assertNotNull(loaded);
+        assertTrue(cache.isFresh(loaded));
+        assertEquals(ACTIVE, ExchangeInfoCache.symbols(loaded));
+    }
+    @Test
+    void snapshotOlderThanTheTtlIsStaleButServed() throws Exception {
+        ExchangeInfoCache cache = cache(50);
+        cache.store(ACTIVE, null);
+        Thread.sleep(100);
+        ExchangeInfoCache.Snapshot loaded = cache.load();
+        assertNotNull(loaded);
+        assertFalse(cache.isFresh(loaded));
+    }
+    @Test
+    void zeroTtlDisablesTheCache() throws IOException {
+        ExchangeInfoCache cache = cache(0);
+        cache.store(ACTIVE, null);
+        assertFalse(Files.exists(file()));
+        assertNull(cache.load());
+    }
+    @Test
+    void missingCorruptOrForeignSnapshotsAreIgnored() throws IOException {
+        ExchangeInfoCache cache = cache(60_000);
+        assertNull(cache.load());
+        Files.writeString(file(), "{\"fetchedAt\":17");
+        assertNull(cache.load());
+        // Built for a different quote filter
+        new ExchangeInfoCache(file(), 60_000, List.of("FDUSD"), "TRADING").store(Map.of("BTCFDUSD", "FDUSD"), null);
+        assertNull(cache.load());
+        cache.store(ACTIVE, null);
+        assertNotNull(cache.load());
+    }
+    @Test
+    void backgroundRefreshRewritesTheSnapshotOnADaemonThread() throws Exception {
+        ExchangeInfoCache cache = cache(60_000);
+        ExchangeInfoCache.Snapshot previous = cache.store(ACTIVE, null);
+        Thread refresh = cache.refreshInBackground(() -> REFRESHED, previous);
+        assertTrue(refresh.isDaemon());
+        cache.awaitRefresh(10_000);
+        assertFalse(refresh.isAlive());
+        assertEquals(Map.of("BTCUSDC", "USDC", "SOLUSDC", "USDC"), ExchangeInfoCache.symbols(cache.load()));
+    }
+    @Test
+    void failedRefreshKeepsTheOldSnapshot() throws Exception {
+        ExchangeInfoCache cache = cache(60_000);
+        ExchangeInfoCache.Snapshot previous = cache.store(ACTIVE, null);
+        cache.refreshInBackground(() -> {
+            throw new IOException("exchangeInfo down");
+        }, previous);
+        cache.awaitRefresh(10_000);
+        assertEquals(previous.hash(), cache.load().hash());
+    }
+    @Test
+    void refreshesAreNeverStacked() throws Exception {
+        ExchangeInfoCache cache = cache(60_000);
+        ExchangeInfoCache.Snapshot previous = cache.store(ACTIVE, null);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = cache.refreshInBackground(() -> {
+            release.await(10, TimeUnit.SECONDS);
+            return REFRESHED;
+        }, previous);
+        assertSame(first, cache.refreshInBackground(() -> REFRESHED, previous));
+        release.countDown();
+        cache.awaitRefresh(10_000);
+    }
+    private ExchangeInfoCache cache(long ttlMillis) {
+        return new ExchangeInfoCache(file(), ttlMillis, QUOTES, "TRADING");
+    }
+    private Path file() {
+        return dir.resolve(ExchangeInfoCache.FILE_NAME);
+    }
+}
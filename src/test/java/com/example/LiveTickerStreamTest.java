@@ -0,0 +1,88 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+class LiveTickerStreamTest {
+    private WebSocketStandIn standIn;
+    private LiveVolumeRanking ranking;
+    private final BlockingQueue<List<String>> rankings = new LinkedBlockingQueue<>();
+    @BeforeEach
+    void setUp() throws Exception {
+        standIn = new WebSocketStandIn();
+        ranking = new LiveVolumeRanking(new QuoteQuotas(Map.of("USDC", 2), 0));
+        ranking.setActiveSymbols(Map.of("BTCUSDC", "USDC", "ETHUSDC", "USDC", "SOLUSDC", "USDC"));
+        ranking.setRankChangeListener(rankings::add);
+    }
+    @AfterEach
+    void tearDown() throws Exception {
+        standIn.close();
+    }
+    @Test
+    void streamedTickersReachTheRanking() throws Exception {
+        try (LiveTickerStream stream = new LiveTickerStream(standIn.baseUrl(), ranking)) {
+            stream.connect();
+            WebSocketStandIn.Connection connection = standIn.accept(5, TimeUnit.SECONDS);
+            assertNotNull(connection, "stream never connected");
+            assertEquals("/ws/!miniTicker@arr", connection.path());
+            connection.send(miniTickers("BTCUSDC", 900, "ETHUSDC", 500, "SOLUSDC", 100, "BTCUSDT", 5000));
+            assertEquals(List.of("BTCUSDC", "ETHUSDC"), rankings.poll(5, TimeUnit.SECONDS));
+            connection.send(miniTickers("SOLUSDC", 1200));
+            assertEquals(List.of("SOLUSDC", "BTCUSDC"), rankings.poll(5, TimeUnit.SECONDS));
+        }
+    }
+    @Test
+    void malformedFrameKeepsTheSubscription() throws Exception {
+        try (LiveTickerStream stream = new LiveTickerStream(standIn.baseUrl(), ranking)) {
+            stream.connect();
+            WebSocketStandIn.Connection connection = standIn.accept(5, TimeUnit.SECONDS);
+            assertNotNull(connection, "stream never connected");
+            connection.send("{\"e\":\"error\"}");
+            connection.send("[{\"s\":\"BTCUSDC\",\"q\":");
+            connection.send(miniTickers("ETHUSDC", 500, "SOLUSDC", 100));
+            assertEquals(List.of("ETHUSDC", "SOLUSDC"), rankings.poll(5, TimeUnit.SECONDS));
+            assertNull(standIn.accept(1_500, TimeUnit.MILLISECONDS), "stream reconnected after a bad frame");
+        }
+    }
+    @Test
+    void reconnectsAfterTheServerClosesTheStream() throws Exception {
+        try (LiveTickerStream stream = new LiveTickerStream(standIn.baseUrl(), ranking)) {
+            stream.connect();
+            WebSocketStandIn.Connection first = standIn.accept(5, TimeUnit.SECONDS);
+            assertNotNull(first, "stream never connected");
+            first.send(miniTickers("BTCUSDC", 900, "ETHUSDC", 500));
+            assertEquals(List.of("BTCUSDC", "ETHUSDC"), rankings.poll(5, TimeUnit.SECONDS));
+            first.close();
+            // First retry comes after the initial 1 s backoff
+            WebSocketStandIn.Connection second = standIn.accept(5, TimeUnit.SECONDS);
+            assertNotNull(second, "stream did not reconnect");
+            second.send(miniTickers("SOLUSDC", 1200));
+            assertEquals(List.of("SOLUSDC", "BTCUSDC"), rankings.poll(5, TimeUnit.SECONDS));
+        }
+    }
+    @Test
+    void closeStopsReconnecting() throws Exception {
+        LiveTickerStream stream = new LiveTickerStream(standIn.baseUrl(), ranking);
+        stream.connect();
+        WebSocketStandIn.Connection connection = standIn.accept(5, TimeUnit.SECONDS);
+        assertNotNull(connection, "stream never connected");
+        stream.close();
+        connection.close();
+        assertNull(standIn.accept(2_500, TimeUnit.MILLISECONDS), "closed stream reconnected");
+    }
+    private static String miniTickers(Object... symbolVolumes) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < symbolVolumes.length; i += 2) {
+            json.append(i == 0 ? "" : ",").append("{\"e\":\"24hrMiniTicker\",\"E\":1700000000000,\"s\":\"").append(symbolVolumes[i])
+                    .append("\",\"c\":\"1.0\",\"o\":\"1.0\",\"h\":\"1.0\",\"l\":\"1.0\",\"v\":\"1.0\",\"q\":\"").append(symbolVolumes[i + 1]).append("\"}");
+        }
+        return json.append(']').toString();
+    }
+}
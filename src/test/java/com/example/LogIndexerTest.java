@@ -0,0 +1,93 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+class LogIndexerTest {
+    private static final String INDEXED = "10:00 INFO started\n10:00 WARN slow fill\n10:00 ERROR order rejected\n";
+    private static final String TAIL = "10:01 SEVERE disconnected\n10:01 INFO reconnected\n";
+    @TempDir
+    Path logDir;
+    @Test
+    void queryWithoutSidecarScansTheLogAndCreatesNothing() throws IOException {
+        Path log = write("BTCUSDC.log", INDEXED);
+        assertEquals(INDEXED, query(log));
+        assertFalse(Files.exists(logDir.resolve(LogIndexer.INDEX_DIR)));
+    }
+    @Test
+    void queryLeavesTheSidecarUntouched() throws IOException {
+        Path log = write("BTCUSDC.log", INDEXED);
+        new LogIndexer(logDir).index(log);
+        Path sidecar = logDir.resolve(LogIndexer.INDEX_DIR).resolve("BTCUSDC.idx");
+        byte[] before = Files.readAllBytes(sidecar);
+        long modified = Files.getLastModifiedTime(sidecar).toMillis();
+        Files.writeString(log, TAIL, StandardOpenOption.APPEND);
+        assertEquals(INDEXED + TAIL, query(log));
+        assertArrayEquals(before, Files.readAllBytes(sidecar));
+        assertEquals(modified, Files.getLastModifiedTime(sidecar).toMillis());
+    }
+    @Test
+    void unindexedTailIsCountedInMemory() throws IOException {
+        Path log = write("BTCUSDC.log", INDEXED);
+        LogIndexer indexer = new LogIndexer(logDir);
+        indexer.index(log);
+        Files.writeString(log, TAIL, StandardOpenOption.APPEND);
+        List<String> counted = new ArrayList<>();
+        Logger logger = Logger.getLogger(LogIndexer.class.getName());
+        Handler capture = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                counted.add(record.getMessage());
+            }
+            @Override
+            public void flush() {
+            }
+            @Override
+            public void close() {
+            }
+        };
+        logger.addHandler(capture);
+        try {
+            query(log);
+        } finally {
+            logger.removeHandler(capture);
+        }
+        assertEquals(1, counted.size());
+        assertTrue(counted.get(0).startsWith("BTCUSDC: 2 ERROR, 1 WARN lines"), counted.get(0));
+        // The daemon's next pass records the same counts the query reported
+        indexer.index(log);
+        List<LogIndexer.Bucket> buckets = LogIndexer.buckets(log);
+        assertEquals(2, buckets.stream().mapToInt(LogIndexer.Bucket::errors).sum());
+        assertEquals(1, buckets.stream().mapToInt(LogIndexer.Bucket::warnings).sum());
+    }
+    @Test
+    void rotatedLogIgnoresStaleBuckets() throws IOException {
+        Path log = write("BTCUSDC.log", INDEXED + TAIL);
+        new LogIndexer(logDir).index(log);
+        // Rotation truncated the live file before the daemon's next pass
+        Files.writeString(log, "10:05 INFO fresh\n");
+        assertEquals("10:05 INFO fresh\n", query(log));
+    }
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(logDir.resolve(name), content);
+    }
+    private String query(Path log) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        String file = log.getFileName().toString();
+        LogIndexer.query(logDir, file.substring(0, file.length() - ".log".length()), 60 * 60_000L, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
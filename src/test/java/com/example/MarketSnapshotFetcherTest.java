@@ -0,0 +1,115 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+class MarketSnapshotFetcherTest {
+    private HttpServer server;
+    private HttpMarketDataSource source;
+    private volatile int exchangeInfoStatus = 200;
+    // Both handlers count down on arrival; a call waiting on it only proceeds once the other is in flight too
+    private final CountDownLatch bothArrived = new CountDownLatch(2);
+    // Holds the ticker24H response until the test releases it
+    private final CountDownLatch releaseTickers = new CountDownLatch(1);
+    private volatile boolean holdTickers;
+    private volatile boolean overlapped;
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/api/v3/exchangeInfo", exchange -> {
+            bothArrived.countDown();
+            if (exchangeInfoStatus == 200) {
+                overlapped = await(bothArrived);
+                respond(exchange, 200, "{\"symbols\":[]}");
+            } else {
+                respond(exchange, exchangeInfoStatus, "{\"code\":-1000,\"msg\":\"boom\"}");
+            }
+        });
+        server.createContext("/api/v3/ticker/24hr", exchange -> {
+            bothArrived.countDown();
+            await(holdTickers ? releaseTickers : bothArrived);
+            respond(exchange, 200, Fixtures.read("ticker24H.json"));
+        });
+        server.start();
+        source = new HttpMarketDataSource("http://127.0.0.1:" + server.getAddress().getPort(), new RateBudget(6000, 0.5));
+    }
+    @AfterEach
+    void stopStub() {
+        releaseTickers.countDown();
+        server.stop(0);
+    }
+    @Test
+    void fetchesBothCallsConcurrently() throws Exception {
+        // Each stub handler waits for the other request to arrive, so sequential calls would never get both answers
+        MarketSnapshot snapshot = MarketSnapshotFetcher.fetch(source::exchangeInfo, source::ticker24H);
+        assertTrue(overlapped, "exchangeInfo was answered before ticker24H was requested");
+        assertEquals("{\"symbols\":[]}", snapshot.exchangeInfoJson());
+        assertEquals(Fixtures.read("ticker24H.json"), snapshot.tickersJson());
+    }
+    @Test
+    void firstFailureIsRethrownWithoutWaitingForTheOtherCall() {
+        exchangeInfoStatus = 500;
+        holdTickers = true;
+        IOException failure = assertThrows(IOException.class, () -> MarketSnapshotFetcher.fetch(source::exchangeInfo, source::ticker24H));
+        assertTrue(failure.getMessage().contains("HTTP 500"), failure.getMessage());
+        // The ticker24H response is still held, so the failure surfaced without waiting for it
+        assertEquals(1, releaseTickers.getCount());
+    }
+    @Test
+    void failureInterruptsTheOtherCall() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        assertThrows(IOException.class, () -> MarketSnapshotFetcher.fetch(
+                () -> {
+                    // Fail only once the other call is in flight (a task cancelled before it starts never runs)
+                    started.await();
+                    throw new IOException("exchangeInfo down");
+                },
+                () -> {
+                    started.countDown();
+                    try {
+                        Thread.sleep(30_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                    return "[]";
+                }));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS), "ticker24H call was not cancelled");
+    }
+    @Test
+    void runtimeFailuresPropagateUnwrapped() {
+        assertThrows(IllegalStateException.class, () -> MarketSnapshotFetcher.fetch(source::exchangeInfo, () -> {
+            throw new IllegalStateException("bad ticker call");
+        }));
+    }
+    private static boolean await(CountDownLatch latch) {
+        try {
+            // Bounded so a broken fetcher fails the test instead of hanging the stub
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("x-mbx-used-weight-1m", "100");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+class ProcessRunnerTest {
+    private static final long TIMEOUT_MILLIS = 300;
+    private static final long GRACE_MILLIS = 700;
+    private final ProcessRunner runner = new ProcessRunner(TIMEOUT_MILLIS, GRACE_MILLIS, 3);
+    @Test
+    void tailKeepsOnlyTheLastLines() throws Exception {
+        ProcessRunner.Result result = run("for i in $(seq 1 100); do echo line$i; done");
+        assertNull(result.error());
+        assertEquals(0, result.exitCode());
+        assertEquals(100, result.outputLines());
+        assertEquals(List.of("line98", "line99", "line100"), result.outputTail());
+    }
+    @Test
+    void stderrIsMergedIntoTheTail() throws Exception {
+        ProcessRunner.Result result = run("echo out; echo err >&2; exit 3");
+        assertEquals(3, result.exitCode());
+        assertEquals(List.of("out", "err"), result.outputTail());
+        assertTrue(result.error().contains("exit code 3"), result.error());
+    }
+    @Test
+    void timeoutSendsSigtermFirst() throws Exception {
+        ProcessRunner.Result result = run("echo started; exec sleep 30");
+        assertTrue(result.error().startsWith("timed out"), result.error());
+        // 128 + SIGTERM: the child honoured the polite signal, well before the grace period ran out
+        assertEquals(143, result.exitCode());
+        assertTrue(result.millis() < TIMEOUT_MILLIS + GRACE_MILLIS, result.millis() + " ms");
+        assertEquals(List.of("started"), result.outputTail());
+    }
+    @Test
+    void childIgnoringSigtermIsKilledAfterTheGracePeriod() throws Exception {
+        ProcessRunner.Result result = run("trap '' TERM; for i in 1 2 3 4 5; do echo line$i; done; exec sleep 30");
+        assertTrue(result.error().startsWith("timed out"), result.error());
+        // 128 + SIGKILL, and only once the grace period has passed
+        assertEquals(137, result.exitCode());
+        assertTrue(result.millis() >= TIMEOUT_MILLIS + GRACE_MILLIS, result.millis() + " ms");
+        assertTrue(result.millis() < TIMEOUT_MILLIS + 2 * GRACE_MILLIS + 2_000, result.millis() + " ms");
+        assertEquals(5, result.outputLines());
+        assertEquals(List.of("line3", "line4", "line5"), result.outputTail());
+    }
+    @Test
+    void grandchildHoldingThePipeDoesNotStallTheResult() throws Exception {
+        ProcessRunner.Result result = run("sleep 5 & echo done");
+        assertNull(result.error());
+        assertEquals(List.of("done"), result.outputTail());
+        assertTrue(result.millis() < 5_000, result.millis() + " ms");
+    }
+    @Test
+    void missingExecutableIsAFailedResult() throws Exception {
+        ProcessRunner.Result result = runner.start(List.of("/nonexistent/systemctl")).get(5, TimeUnit.SECONDS);
+        assertEquals(-1, result.exitCode());
+        assertNotNull(result.error());
+        assertTrue(result.outputTail().isEmpty());
+    }
+    private ProcessRunner.Result run(String script) throws Exception {
+        return runner.start(List.of("sh", "-c", script)).get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+class RankingHistoryTest {
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final int SYMBOLS = 5_000;
+    @TempDir
+    Path dir;
+    @Test
+    void appendAndScanRoundTripAcrossTheWindowBoundary() throws IOException {
+        // The second snapshot straddles the first 8 MB window
+        int first = RankingHistory.RECORDS_PER_WINDOW - 3;
+        try (RankingHistory history = new RankingHistory(dir)) {
+            history.append(1_000, rows(first), List.of("S1", "S0"));
+            history.append(2_000, rows(7), List.of("S2"));
+            assertEquals(first + 7, history.records());
+        }
+        List<double[]> visited = new ArrayList<>();
+        long count = RankingHistory.scan(dir, 0, (timestamp, symbolId, rank, quoteVolume, trades) ->
+                visited.add(new double[] {timestamp, symbolId, rank, quoteVolume, trades}));
+        assertEquals(first + 7, count);
+        assertEquals(first + 7, visited.size());
+        for (int i = 0; i < visited.size(); i++) {
+            boolean second = i >= first;
+            int row = second ? i - first : i;
+            double[] record = visited.get(i);
+            assertEquals(second ? 2_000 : 1_000, record[0], "timestamp of record " + i);
+            assertEquals(row % SYMBOLS, record[1], "symbol of record " + i);
+            assertEquals(row, record[3], "volume of record " + i);
+            assertEquals(row * 0.5, record[4], "count of record " + i);
+        }
+        assertEquals(List.of(2.0, 1.0, 0.0), List.of(visited.get(0)[2], visited.get(1)[2], visited.get(2)[2]));
+        assertEquals(1.0, visited.get(first + 2)[2]);
+        // Reopening resumes after the committed records and reuses the dictionary ids
+        try (RankingHistory history = new RankingHistory(dir)) {
+            assertEquals(first + 7, history.records());
+            history.append(3_000, rows(2), List.of());
+        }
+        assertEquals(2, RankingHistory.scan(dir, 3_000, (timestamp, symbolId, rank, quoteVolume, trades) -> { }));
+        assertEquals(SYMBOLS, RankingHistory.readDictionary(dir, false).size());
+    }
+    @Test
+    void sinceLandingMidSnapshotStartsAtTheNextSnapshot() throws IOException {
+        try (RankingHistory history = new RankingHistory(dir)) {
+            for (long t = 1_000; t <= 4_000; t += 1_000) {
+                history.append(t, rows(5), List.of("S0"));
+            }
+        }
+        List<Long> timestamps = new ArrayList<>();
+        RankingHistory.Visitor collect = (timestamp, symbolId, rank, quoteVolume, trades) -> timestamps.add(timestamp);
+        assertEquals(10, RankingHistory.scan(dir, 2_500, collect));
+        assertEquals(3_000L, timestamps.get(0));
+        // An exact match starts at the snapshot's first record, not somewhere inside it
+        timestamps.clear();
+        assertEquals(15, RankingHistory.scan(dir, 2_000, collect));
+        assertEquals(List.of(2_000L, 2_000L, 2_000L, 2_000L, 2_000L, 3_000L), timestamps.subList(0, 6));
+        assertEquals(0, RankingHistory.scan(dir, 4_001, collect));
+        assertEquals(20, RankingHistory.scan(dir, 0, (timestamp, symbolId, rank, quoteVolume, trades) -> { }));
+    }
+    @Test
+    void reopenRepairsATruncatedDictionaryLine() throws IOException {
+        try (RankingHistory history = new RankingHistory(dir)) {
+            history.append(1_000, snapshot("BTCUSDC", "ETHUSDC"), List.of("BTCUSDC"));
+        }
+        Path dictionary = dir.resolve(RankingHistory.DICTIONARY_FILE);
+        // A writer died halfway through a new symbol
+        Files.writeString(dictionary, "SOLU", StandardOpenOption.APPEND);
+        assertEquals(List.of("BTCUSDC", "ETHUSDC"), RankingHistory.readDictionary(dir, false));
+        try (RankingHistory history = new RankingHistory(dir)) {
+            history.append(2_000, snapshot("SOLUSDC", "BTCUSDC"), List.of("SOLUSDC"));
+        }
+        assertEquals("BTCUSDC\nETHUSDC\nSOLUSDC\n", Files.readString(dictionary, StandardCharsets.US_ASCII));
+        List<Integer> ids = new ArrayList<>();
+        RankingHistory.scan(dir, 2_000, (timestamp, symbolId, rank, quoteVolume, trades) -> ids.add(symbolId));
+        assertEquals(List.of(2, 0), ids);
+    }
+    @Test
+    void secondWriterIsRefused() throws IOException {
+        try (RankingHistory history = new RankingHistory(dir)) {
+            IOException refused = assertThrows(IOException.class, () -> new RankingHistory(dir));
+            assertTrue(refused.getMessage().contains("in use by another process"), refused.getMessage());
+            // Readers are not locked out
+            history.append(1_000, rows(3), List.of());
+            assertEquals(3, RankingHistory.scan(dir, 0, (timestamp, symbolId, rank, quoteVolume, trades) -> { }));
+        }
+        // The lock goes with the writer
+        new RankingHistory(dir).close();
+    }
+    @Test
+    void closedHistoryRejectsAppends() throws IOException {
+        RankingHistory history = new RankingHistory(dir);
+        history.close();
+        history.close();
+        assertThrows(IOException.class, () -> history.append(1_000, rows(1), List.of()));
+    }
+    @Test
+    void reportCountsPlanEntriesAcrossSnapshots() throws IOException {
+        long start = System.currentTimeMillis() - 3 * DAY_MILLIS;
+        List<List<String>> plans = List.of(List.of("A", "B"), List.of("A", "C"), List.of("C", "D"), List.of("A", "D"));
+        try (RankingHistory history = new RankingHistory(dir)) {
+            for (int i = 0; i < plans.size(); i++) {
+                history.append(start + i * DAY_MILLIS, snapshot("A", "B", "C", "D"), plans.get(i));
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RankingHistory.report(dir, 7 * DAY_MILLIS, new PrintStream(out, true, StandardCharsets.UTF_8));
+        String report = out.toString(StandardCharsets.UTF_8);
+        assertTrue(report.startsWith("4 snapshots, 16 records, 4 symbols over 3"), report);
+        // C enters on day 1, D on day 2 and A again on day 3; the first snapshot's plan is not an entry
+        assertTrue(report.contains("\n3 plan entries ("), report);
+        // Limited to the last day and a half, only the last two snapshots and their one transition remain
+        out.reset();
+        RankingHistory.report(dir, DAY_MILLIS + DAY_MILLIS / 2, new PrintStream(out, true, StandardCharsets.UTF_8));
+        report = out.toString(StandardCharsets.UTF_8);
+        assertTrue(report.startsWith("2 snapshots, 8 records"), report);
+        assertTrue(report.contains("\n1 plan entries ("), report);
+    }
+    private static TickerVolumes rows(int count) {
+        TickerVolumes tickers = new TickerVolumes(count);
+        for (int row = 0; row < count; row++) {
+            tickers.add("S" + (row % SYMBOLS), row, row * 0.5, Double.NaN, Double.NaN, Double.NaN);
+        }
+        return tickers;
+    }
+    private static TickerVolumes snapshot(String... symbols) {
+        TickerVolumes tickers = new TickerVolumes(symbols.length);
+        for (String symbol : symbols) {
+            tickers.add(symbol, 100);
+        }
+        return tickers;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+class RankingStabilizerTest {
+    @Test
+    void symbolOscillatingAroundTheCutIsNotChurned() {
+        // No smoothing, so only the rank bands are at work: top 3, enter within 2, exit beyond 5
+        RankingStabilizer stabilizer = new RankingStabilizer(3, 2, 5, 1.0, 1);
+        assertEquals(List.of("A", "B", "C"), stabilizer.update(snapshot("A", 100, "B", 90, "C", 80, "D", 79, "E", 10)));
+        for (int cycle = 0; cycle < 6; cycle++) {
+            boolean dAhead = cycle % 2 == 0;
+            List<String> selection = stabilizer.update(snapshot("A", 100, "B", 90, "C", dAhead ? 78 : 80, "D", dAhead ? 81 : 79, "E", 10));
+            assertEquals(List.of("A", "B", "C"), selection, "cycle " + cycle);
+            assertEquals(0, stabilizer.lastChurn());
+        }
+    }
+    @Test
+    void newcomerMustReachTheEnterRank() {
+        RankingStabilizer stabilizer = new RankingStabilizer(3, 2, 5, 1.0, 1);
+        stabilizer.update(snapshot("A", 100, "B", 90, "C", 80, "D", 70));
+        // D at rank 3 is inside the top N but not the enter band; C (rank 4) keeps its bot
+        assertEquals(List.of("A", "B", "C"), stabilizer.update(snapshot("A", 100, "B", 90, "D", 85, "C", 80)));
+        // At rank 2 D displaces the incumbent that slipped out of the top N
+        assertEquals(List.of("A", "D", "B"), stabilizer.update(snapshot("A", 100, "D", 95, "B", 90, "C", 80)));
+        assertEquals(1, stabilizer.lastChurn());
+    }
+    @Test
+    void incumbentBeyondTheExitRankIsReplacedByTheBestNewcomer() {
+        RankingStabilizer stabilizer = new RankingStabilizer(2, 1, 3, 1.0, 1);
+        stabilizer.update(snapshot("A", 100, "B", 90, "C", 80, "D", 70));
+        // B falls to rank 4, past the exit band: its slot goes to C (rank 2) even though C is outside the enter band
+        assertEquals(List.of("A", "C"), stabilizer.update(snapshot("A", 100, "C", 80, "D", 70, "B", 60)));
+    }
+    @Test
+    void undeployedSymbolsLoseIncumbentStatus() {
+        RankingStabilizer stabilizer = new RankingStabilizer(3, 2, 5, 1.0, 1);
+        stabilizer.update(snapshot("A", 100, "B", 90, "C", 80, "D", 70));
+        // A global cap deployed only two of the three
+        stabilizer.retain(Set.of("A", "B"));
+        // C slipped to rank 4, inside the exit band, but never had a bot: D outranks it for the free slot
+        assertEquals(List.of("A", "B", "D"), stabilizer.update(snapshot("A", 100, "B", 90, "D", 85, "C", 80)));
+        assertEquals(1, stabilizer.lastChurn());
+    }
+    @Test
+    void ewmaDampsASingleSpike() {
+        RankingStabilizer stabilizer = new RankingStabilizer(2, 2, 2, 0.3, 12);
+        for (int i = 0; i < 5; i++) {
+            stabilizer.update(snapshot("A", 100, "B", 90, "C", 50));
+        }
+        // One snapshot where C spikes above B is not enough to overtake B's history
+        assertEquals(List.of("A", "B"), stabilizer.update(snapshot("A", 100, "B", 90, "C", 120)));
+        assertEquals(0.3 * 120 + 0.7 * 50, stabilizer.score("C"), 5, "newest sample weighted highest");
+        // A sustained rise does get through
+        List<String> selection = List.of();
+        for (int i = 0; i < 6; i++) {
+            selection = stabilizer.update(snapshot("A", 100, "B", 90, "C", 120));
+        }
+        assertEquals(List.of("C", "A"), selection);
+    }
+    @Test
+    void missingSymbolsAgeOutOfTheirWindow() {
+        RankingStabilizer stabilizer = new RankingStabilizer(1, 1, 1, 0.5, 2);
+        stabilizer.update(snapshot("A", 100));
+        stabilizer.update(snapshot("B", 10));
+        assertEquals(100, stabilizer.score("A"));
+        stabilizer.update(snapshot("B", 10));
+        assertEquals(Double.NaN, stabilizer.score("A"));
+    }
+    @Test
+    void bandsScaleWithTheQuota() {
+        // enter 10 / exit 25 of 20 becomes enter 2 / exit 5 for a quota of 4
+        RankingStabilizer stabilizer = RankingStabilizer.forQuota(4, 20, 10, 25, 1.0, 1);
+        stabilizer.update(snapshot("A", 100, "B", 90, "C", 80, "D", 70, "E", 60, "F", 50));
+        // E at rank 3 is outside the scaled enter band; D at rank 5 is still inside the scaled exit band
+        assertEquals(List.of("A", "B", "C", "D"), stabilizer.update(snapshot("A", 100, "B", 90, "E", 85, "C", 80, "D", 70, "F", 50)));
+        // F at rank 2 is inside it and takes D's slot
+        assertEquals(List.of("A", "F", "B", "C"), stabilizer.update(snapshot("A", 100, "F", 95, "B", 90, "E", 85, "C", 80, "D", 70)));
+    }
+    @Test
+    void rejectsInvertedBands() {
+        assertThrows(IllegalArgumentException.class, () -> new RankingStabilizer(3, 4, 5, 0.3, 12));
+        assertThrows(IllegalArgumentException.class, () -> new RankingStabilizer(3, 2, 2, 0.3, 12));
+    }
+    private static TickerVolumes snapshot(Object... symbolVolumes) {
+        TickerVolumes tickers = new TickerVolumes(symbolVolumes.length / 2);
+        for (int i = 0; i < symbolVolumes.length; i += 2) {
+            tickers.add((String) symbolVolumes[i], ((Number) symbolVolumes[i + 1]).doubleValue());
+        }
+        return tickers;
+    }
+}
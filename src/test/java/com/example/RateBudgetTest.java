@@ -0,0 +1,119 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+class RateBudgetTest {
+    private static final int EXCHANGE_INFO = 20;
+    private static final int TICKERS = 80;
+    // 50% of 200: exactly one concurrent exchangeInfo plus ticker24H
+    private final RateBudget budget = new RateBudget(200, 0.5);
+    @BeforeEach
+    void awayFromMinuteBoundary() throws InterruptedException {
+        // The budget resets every calendar minute; don't let a test straddle the reset
+        long intoMinute = System.currentTimeMillis() % 60_000;
+        if (intoMinute > 55_000) {
+            Thread.sleep(60_000 - intoMinute + 50);
+        }
+    }
+    @Test
+    void responseReleasesOnlyItsOwnCall() throws InterruptedException {
+        budget.acquire("exchangeInfo", EXCHANGE_INFO);
+        budget.acquire("ticker24H", TICKERS);
+        assertEquals(100, budget.estimatedWeight());
+        // exchangeInfo answers first: the exchange has counted it, but not the ticker call still in flight
+        budget.onUsedWeight(EXCHANGE_INFO, EXCHANGE_INFO);
+        assertEquals(100, budget.estimatedWeight());
+        budget.onUsedWeight(EXCHANGE_INFO + TICKERS, TICKERS);
+        assertEquals(100, budget.estimatedWeight());
+    }
+    @Test
+    void outOfOrderReportsKeepTheHighest() throws InterruptedException {
+        budget.acquire("exchangeInfo", EXCHANGE_INFO);
+        budget.acquire("ticker24H", TICKERS);
+        budget.onUsedWeight(EXCHANGE_INFO + TICKERS, TICKERS);
+        budget.onUsedWeight(EXCHANGE_INFO, EXCHANGE_INFO);
+        assertEquals(100, budget.estimatedWeight());
+    }
+    @Test
+    void reportIncludesOtherClientsOnTheIp() throws InterruptedException {
+        budget.acquire("exchangeInfo", EXCHANGE_INFO);
+        // Bots on the same host used 50 before this call landed
+        budget.onUsedWeight(50 + EXCHANGE_INFO, EXCHANGE_INFO);
+        assertEquals(70, budget.estimatedWeight());
+    }
+    @Test
+    void withoutHeadersReservationsAccumulate() throws InterruptedException {
+        budget.acquire("ticker24H", 30);
+        budget.acquire("ticker24H", 30);
+        budget.acquire("ticker24H", 30);
+        assertEquals(90, budget.estimatedWeight());
+    }
+    @Test
+    void inFlightCallStillBlocksOverBudgetCalls() throws InterruptedException {
+        budget.acquire("exchangeInfo", EXCHANGE_INFO);
+        budget.acquire("ticker24H", TICKERS);
+        budget.onUsedWeight(EXCHANGE_INFO, EXCHANGE_INFO);
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread caller = new Thread(() -> {
+            try {
+                budget.acquire("exchangeInfo", EXCHANGE_INFO);
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                // Expected: the call waits for the next window
+            }
+        });
+        caller.start();
+        try {
+            assertFalse(acquired.await(300, TimeUnit.MILLISECONDS), "acquired past the budget while ticker24H was in flight");
+        } finally {
+            caller.interrupt();
+            caller.join();
+        }
+    }
+    @Test
+    void consecutiveRateLimitsDoubleEvenWithTheWeightHeader() throws InterruptedException {
+        budget.acquire("ticker24H", TICKERS);
+        // 429 responses carry X-MBX-USED-WEIGHT-1M as well; reporting it must not reset the escalation
+        budget.onUsedWeight(1_300, TICKERS);
+        budget.onRateLimited(429, -1);
+        assertEquals(60_000, budget.blockedMillis(), 1_000);
+        budget.onUsedWeight(1_400, TICKERS);
+        budget.onRateLimited(429, -1);
+        assertEquals(120_000, budget.blockedMillis(), 1_000);
+    }
+    @Test
+    void banStartsAtTwoMinutesAndDoubles() {
+        budget.onRateLimited(418, -1);
+        assertEquals(120_000, budget.blockedMillis(), 1_000);
+        budget.onRateLimited(418, -1);
+        assertEquals(240_000, budget.blockedMillis(), 1_000);
+    }
+    @Test
+    void retryAfterTakesPrecedenceOverTheBackoff() {
+        budget.onRateLimited(429, 5);
+        assertEquals(5_000, budget.blockedMillis(), 1_000);
+        // The backoff still escalated underneath, so a 429 without Retry-After waits twice the initial minute
+        budget.onRateLimited(429, -1);
+        assertEquals(120_000, budget.blockedMillis(), 1_000);
+    }
+    @Test
+    void successResetsTheBackoff() {
+        budget.onRateLimited(429, 1);
+        budget.onRateLimited(429, 1);
+        budget.onSuccess();
+        budget.onRateLimited(429, -1);
+        assertEquals(60_000, budget.blockedMillis(), 1_000);
+    }
+    @Test
+    void rateLimitBlocksAcquire() throws InterruptedException {
+        budget.onRateLimited(429, 1);
+        long start = System.nanoTime();
+        budget.acquire("exchangeInfo", EXCHANGE_INFO);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(900), "acquired during the Retry-After pause");
+        assertEquals(0, budget.blockedMillis());
+    }
+}
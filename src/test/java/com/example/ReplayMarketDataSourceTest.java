@@ -0,0 +1,77 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+class ReplayMarketDataSourceTest {
+    @TempDir
+    Path dir;
+    @Test
+    void snapshotPairsEachTickerWithTheExchangeInfoRecordedBeforeIt() throws Exception {
+        record(RecordingMarketDataSource.EXCHANGE_INFO_DIR, 100, 300);
+        record(RecordingMarketDataSource.TICKERS_DIR, 150, 250, 350);
+        ReplayMarketDataSource replay = new ReplayMarketDataSource(dir, 0, false);
+        assertPair(replay.snapshot(), 100, 150);
+        assertPair(replay.snapshot(), 100, 250);
+        assertPair(replay.snapshot(), 300, 350);
+        assertThrows(IOException.class, replay::snapshot);
+    }
+    @Test
+    void tickerBeforeTheFirstExchangeInfoGetsTheEarliestOne() throws Exception {
+        record(RecordingMarketDataSource.EXCHANGE_INFO_DIR, 200);
+        record(RecordingMarketDataSource.TICKERS_DIR, 100);
+        assertPair(new ReplayMarketDataSource(dir, 0, false).snapshot(), 200, 100);
+    }
+    @Test
+    void loopingStartsOverWithTheFirstPair() throws Exception {
+        record(RecordingMarketDataSource.EXCHANGE_INFO_DIR, 100, 300);
+        record(RecordingMarketDataSource.TICKERS_DIR, 150, 350);
+        ReplayMarketDataSource replay = new ReplayMarketDataSource(dir, 0, true);
+        assertPair(replay.snapshot(), 100, 150);
+        assertPair(replay.snapshot(), 300, 350);
+        assertPair(replay.snapshot(), 100, 150);
+    }
+    @Test
+    void recordedSnapshotsReplayInTheirOriginalPairs() throws Exception {
+        MarketDataSource live = new MarketDataSource() {
+            private int calls;
+            @Override
+            public String exchangeInfo() {
+                throw new UnsupportedOperationException();
+            }
+            @Override
+            public String ticker24H() {
+                throw new UnsupportedOperationException();
+            }
+            @Override
+            public MarketSnapshot snapshot() {
+                calls++;
+                return new MarketSnapshot("info" + calls, "tickers" + calls, 0, 0);
+            }
+        };
+        RecordingMarketDataSource recorder = new RecordingMarketDataSource(live, dir);
+        for (int i = 0; i < 5; i++) {
+            recorder.snapshot();
+            // Real refreshes are minutes apart; keep consecutive snapshots out of the same millisecond
+            Thread.sleep(2);
+        }
+        ReplayMarketDataSource replay = new ReplayMarketDataSource(dir, 0, false);
+        for (int i = 0; i < 5; i++) {
+            MarketSnapshot snapshot = replay.snapshot();
+            assertEquals(snapshot.exchangeInfoJson().substring("info".length()), snapshot.tickersJson().substring("tickers".length()));
+        }
+    }
+    private void record(String kind, long... millis) throws IOException {
+        Files.createDirectories(dir.resolve(kind));
+        for (long at : millis) {
+            Files.writeString(dir.resolve(kind).resolve(at + ".json"), kind + "@" + at);
+        }
+    }
+    private static void assertPair(MarketSnapshot snapshot, long exchangeInfoMillis, long tickerMillis) {
+        assertEquals(RecordingMarketDataSource.EXCHANGE_INFO_DIR + "@" + exchangeInfoMillis, snapshot.exchangeInfoJson());
+        assertEquals(RecordingMarketDataSource.TICKERS_DIR + "@" + tickerMillis, snapshot.tickersJson());
+    }
+}
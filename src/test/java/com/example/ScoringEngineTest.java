@@ -0,0 +1,61 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+class ScoringEngineTest {
+    private static final String WEIGHTS = "quoteVolume:1,count:0.5";
+    @Test
+    void emptyFirstCallScoresNothing() throws IOException {
+        ScoringEngine scoring = ScoringEngine.fromProperty(WEIGHTS);
+        scoring.score(new TickerVolumes(0));
+        TickerVolumes usdc = usdcPairs();
+        double[] scores = scoring.score(usdc);
+        for (int row = 0; row < usdc.size(); row++) {
+            assertTrue(Double.isFinite(scores[row]), usdc.symbol(row));
+        }
+        assertEquals("BTCUSDC", usdc.symbol(new TopNSelector(1).select(scores, usdc.size())[0]));
+    }
+    @Test
+    void quoteWithoutPairsDoesNotBreakTheOtherQuotes() throws IOException {
+        // ranking.quotes=FDUSD:5,USDC:20 on a snapshot with no FDUSD pairs: the empty quote is scored first
+        QuoteQuotas quotas = QuoteQuotas.fromProperties("FDUSD:5,USDC:20", null, "USDC", 20);
+        TickerVolumes usdc = usdcPairs();
+        Map<String, String> quoteOf = new HashMap<>();
+        for (int row = 0; row < usdc.size(); row++) {
+            quoteOf.put(usdc.symbol(row), "USDC");
+        }
+        ScoringEngine scoring = ScoringEngine.fromProperty(WEIGHTS);
+        Map<String, TickerVolumes> byQuote = quotas.split(usdc, quoteOf);
+        Map<String, List<String>> ranked = new HashMap<>();
+        for (String quote : quotas.quotes()) {
+            TickerVolumes pairs = byQuote.get(quote);
+            int[] top = new TopNSelector(quotas.quota(quote)).select(scoring.score(pairs), pairs.size());
+            ranked.put(quote, Arrays.stream(top).mapToObj(pairs::symbol).toList());
+        }
+        assertEquals(List.of(), ranked.get("FDUSD"));
+        assertEquals(usdc.size(), ranked.get("USDC").size());
+        assertEquals("BTCUSDC", ranked.get("USDC").get(0));
+    }
+    @Test
+    void reusedBuffersMatchAFreshEngine() throws IOException {
+        ScoringEngine reused = ScoringEngine.fromProperty(WEIGHTS + ",volatility:0.25,spread:-0.5");
+        TickerVolumes all = usdcPairs();
+        for (int size : new int[] {3, all.size(), 0, 2}) {
+            TickerVolumes rows = new TickerVolumes(size);
+            for (int row = 0; row < size; row++) {
+                rows.add(all, row);
+            }
+            double[] fresh = ScoringEngine.fromProperty(WEIGHTS + ",volatility:0.25,spread:-0.5").score(rows);
+            assertArrayEquals(Arrays.copyOf(fresh, size), Arrays.copyOf(reused.score(rows), size), "size " + size);
+        }
+    }
+    private static TickerVolumes usdcPairs() throws IOException {
+        return TickerStreamParser.parse(Fixtures.read("ticker24H.json"), (String symbol) -> symbol.endsWith("USDC"));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+class SystemdBatchTest {
+    private static final List<String> ENABLE = List.of("systemctl", "enable", "--now");
+    private final List<List<List<String>>> rounds = new ArrayList<>();
+    // Any command naming this unit fails, like systemctl does for the whole batch
+    private String broken = "";
+    private final SystemdBatch batch = new SystemdBatch(commands -> {
+        rounds.add(commands);
+        List<ProcessRunner.Result> results = new ArrayList<>(commands.size());
+        for (List<String> command : commands) {
+            String error = command.contains(broken) ? "Command failed with exit code 1" : null;
+            results.add(new ProcessRunner.Result(command, error == null ? 0 : 1, 1, List.of("output"), 0, error));
+        }
+        return results;
+    });
+    @Test
+    void chunksAtTheArgumentCount() {
+        List<String> units = units(2_500, "bot-");
+        batch.enableNow(units);
+        assertEquals(1, rounds.size(), "chunks of one operation run as one parallel round");
+        List<List<String>> commands = rounds.get(0);
+        assertEquals(List.of(1_000, 1_000, 500), commands.stream().map(c -> c.size() - ENABLE.size()).toList());
+        assertEquals(units, arguments(commands));
+        assertEquals(3, batch.commands());
+        assertEquals(3, batch.outputLines());
+    }
+    @Test
+    void chunksAtTheCharacterBudget() {
+        // 1000-character names hit the 64 KiB budget long before the argument count
+        List<String> units = units(200, "x".repeat(1_000 - 10));
+        batch.enableNow(units);
+        List<List<String>> commands = rounds.get(0);
+        assertTrue(commands.size() > 1);
+        for (int i = 0; i < commands.size(); i++) {
+            List<String> command = commands.get(i);
+            assertEquals(ENABLE, command.subList(0, ENABLE.size()));
+            assertTrue(chars(command) <= SystemdBatch.MAX_ARGV_CHARS, "chunk " + i + " over budget");
+            if (i + 1 < commands.size()) {
+                String next = commands.get(i + 1).get(ENABLE.size());
+                assertTrue(chars(command) + next.length() + 1 > SystemdBatch.MAX_ARGV_CHARS, "chunk " + i + " split early");
+            }
+        }
+        assertEquals(units, arguments(commands));
+    }
+    @Test
+    void failedChunkIsRetriedOneUnitAtATime() {
+        List<String> units = units(1_500, "bot-");
+        broken = units.get(1_200);
+        batch.enableNow(units);
+        assertEquals(2, rounds.size());
+        // Only the second chunk failed, so only its 500 units are retried, each on its own
+        List<List<String>> retried = rounds.get(1);
+        assertEquals(500, retried.size());
+        for (List<String> command : retried) {
+            assertEquals(ENABLE.size() + 1, command.size());
+        }
+        assertEquals(units.subList(1_000, 1_500), arguments(retried));
+        assertEquals(List.of(broken), batch.failed());
+        assertEquals(2 + 500, batch.commands());
+    }
+    @Test
+    void successfulBatchIsNotRetried() {
+        batch.stop(units(10, "bot-"));
+        batch.disableNow(units(10, "bot-"));
+        assertEquals(2, rounds.size());
+        assertEquals(List.of("systemctl", "disable", "--now"), rounds.get(1).get(0).subList(0, 3));
+        assertTrue(batch.failed().isEmpty());
+    }
+    @Test
+    void emptyOperationsSpawnNothing() {
+        batch.enableNow(List.of());
+        batch.remove(List.of());
+        assertTrue(rounds.isEmpty());
+        assertEquals(0, batch.commands());
+    }
+    @Test
+    void removePassesAbsolutePaths() {
+        batch.remove(List.of(new File("bot-a.service")));
+        List<String> command = rounds.get(0).get(0);
+        assertEquals(List.of("rm", "-f", new File("bot-a.service").getAbsolutePath()), command);
+    }
+    @Test
+    void daemonReloadReportsFailure() {
+        assertTrue(batch.daemonReload());
+        broken = "daemon-reload";
+        assertFalse(batch.daemonReload());
+        assertEquals(2, batch.commands());
+    }
+    private static List<String> units(int count, String prefix) {
+        List<String> units = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            units.add(prefix + String.format("%06d", i) + ".service");
+        }
+        return units;
+    }
+    private static List<String> arguments(List<List<String>> commands) {
+        List<String> arguments = new ArrayList<>();
+        for (List<String> command : commands) {
+            arguments.addAll(command.subList(ENABLE.size(), command.size()));
+        }
+        return arguments;
+    }
+    private static int chars(List<String> command) {
+        int total = 0;
+        for (String arg : command) {
+            total += arg.length() + 1;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+class TickerStreamParserTest {
+    private static final String TICKERS = Fixtures.read("ticker24H.json");
+    @Test
+    void keepsOnlyWantedSymbolsInPayloadOrder() throws IOException {
+        TickerVolumes tickers = TickerStreamParser.parse(TICKERS, Set.of("ETHUSDC", "BTCUSDC", "BTCEUR", "NOSUCHUSDC"));
+        assertEquals(3, tickers.size());
+        assertEquals("BTCUSDC", tickers.symbol(0));
+        assertEquals("ETHUSDC", tickers.symbol(1));
+        assertEquals("BTCEUR", tickers.symbol(2));
+    }
+    @Test
+    void decodesRankingFieldsToPrimitives() throws IOException {
+        TickerVolumes tickers = TickerStreamParser.parse(TICKERS, Set.of("BTCUSDC", "ADAUSDC"));
+        assertTrue(tickers.hasMetrics());
+        assertEquals(97818522.45300617, tickers.quoteVolume(0));
+        assertEquals(482113, tickers.counts()[0]);
+        assertEquals(-1.234, tickers.priceChangePercents()[0]);
+        assertEquals(64210.00, tickers.bidPrices()[0]);
+        assertEquals(64210.01, tickers.askPrices()[0]);
+        // A zero-volume pair is still a valid row
+        assertEquals("ADAUSDC", tickers.symbol(1));
+        assertEquals(0.0, tickers.quoteVolume(1));
+    }
+    @Test
+    void matchesFullTreeBinding() throws IOException {
+        Map<String, Double> expected = new HashMap<>();
+        for (JsonNode node : MarketJson.MAPPER.readTree(TICKERS)) {
+            if (node.get("symbol").asText().endsWith("USDC")) {
+                expected.put(node.get("symbol").asText(), Double.parseDouble(node.get("quoteVolume").asText()));
+            }
+        }
+        TickerVolumes tickers = TickerStreamParser.parse(TICKERS, (String symbol) -> symbol.endsWith("USDC"));
+        assertEquals(expected.size(), tickers.size());
+        for (int i = 0; i < tickers.size(); i++) {
+            assertEquals(expected.get(tickers.symbol(i)), tickers.quoteVolume(i), tickers.symbol(i));
+        }
+    }
+    @Test
+    void streamAndStringInputsAgree() throws IOException {
+        Set<String> wanted = Set.of("BTCUSDT", "ETHUSDT", "USDCUSDT");
+        TickerVolumes fromString = TickerStreamParser.parse(TICKERS, wanted);
+        TickerVolumes fromStream = TickerStreamParser.parse(new ByteArrayInputStream(TICKERS.getBytes(StandardCharsets.UTF_8)), wanted);
+        assertEquals(3, fromString.size());
+        assertEquals(fromString.size(), fromStream.size());
+        for (int i = 0; i < fromString.size(); i++) {
+            assertEquals(fromString.symbol(i), fromStream.symbol(i));
+            assertEquals(fromString.quoteVolume(i), fromStream.quoteVolume(i));
+        }
+    }
+    @Test
+    void skipsRowsWithoutUsableVolume() throws IOException {
+        TickerVolumes tickers = TickerStreamParser.parse(
+                "[{\"symbol\":\"AUSDC\",\"quoteVolume\":\"n/a\"},{\"symbol\":\"BUSDC\"},{\"symbol\":\"CUSDC\",\"quoteVolume\":\"1.5\",\"nested\":{\"x\":[1,2]}}]",
+                Set.of("AUSDC", "BUSDC", "CUSDC"));
+        assertEquals(1, tickers.size());
+        assertEquals("CUSDC", tickers.symbol(0));
+        assertFalse(tickers.hasMetrics());
+    }
+    @Test
+    void rejectsNonArrayAndTruncatedPayloads() {
+        assertThrows(IOException.class, () -> TickerStreamParser.parse("{\"code\":-1003}", Set.of("BTCUSDC")));
+        assertThrows(IOException.class, () -> TickerStreamParser.parse(TICKERS.substring(0, TICKERS.length() / 2), Set.of("BTCUSDC")));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+class TopNIndexTest {
+    @Test
+    void matchesBruteForceSortOnRandomUpdatesAndRemoves() {
+        for (int n : new int[] {0, 1, 5, 20, 300}) {
+            for (long seed = 1; seed <= 3; seed++) {
+                check(n, new Random(seed * 31 + n));
+            }
+        }
+    }
+    @Test
+    void tiesRankTheLowerIdHigher() {
+        TopNIndex index = new TopNIndex(2, 4, new Membership());
+        index.update(3, 10);
+        index.update(1, 10);
+        index.update(2, 10);
+        assertArrayEquals(new int[] {1, 2}, index.topIds());
+        index.update(0, 10);
+        assertArrayEquals(new int[] {0, 1}, index.topIds());
+        assertFalse(index.inTop(2));
+    }
+    @Test
+    void nanKeyRemovesTheId() {
+        Membership membership = new Membership();
+        TopNIndex index = new TopNIndex(2, 4, membership);
+        index.update(0, 5);
+        index.update(1, 3);
+        index.update(2, 1);
+        index.update(0, Double.NaN);
+        assertFalse(index.contains(0));
+        assertEquals(2, index.size());
+        assertArrayEquals(new int[] {1, 2}, index.topIds());
+        assertEquals(Set.of(1, 2), membership.members);
+    }
+    @Test
+    void growsPastTheExpectedIds() {
+        TopNIndex index = new TopNIndex(3, 1, new Membership());
+        for (int id = 0; id < 1_000; id++) {
+            index.update(id, id % 97);
+        }
+        assertArrayEquals(new int[] {96, 193, 290}, index.topIds());
+        assertEquals(1_000, index.size());
+    }
+    private static void check(int n, Random random) {
+        int ids = 200;
+        Membership membership = new Membership();
+        TopNIndex index = new TopNIndex(n, 16, membership);
+        Map<Integer, Double> expected = new HashMap<>();
+        for (int step = 0; step < 3_000; step++) {
+            int id = random.nextInt(ids);
+            int op = random.nextInt(10);
+            if (op == 0) {
+                index.remove(id);
+                expected.remove(id);
+            } else if (op == 1) {
+                index.update(id, Double.NaN);
+                expected.remove(id);
+            } else {
+                // Few distinct keys, so ties are common
+                double key = random.nextInt(50) * 1.5;
+                index.update(id, key);
+                expected.put(id, key);
+            }
+            int[] bruteForce = bruteForceTop(expected, n);
+            String context = "n=" + n + " step " + step;
+            assertArrayEquals(bruteForce, index.topIds(), context);
+            assertEquals(expected.size(), index.size(), context);
+            Set<Integer> top = new HashSet<>();
+            for (int member : bruteForce) {
+                top.add(member);
+            }
+            assertEquals(top, membership.members, context);
+            assertEquals(top.contains(id), index.inTop(id), context);
+            assertEquals(expected.containsKey(id), index.contains(id), context);
+        }
+    }
+    private static int[] bruteForceTop(Map<Integer, Double> keys, int n) {
+        List<Integer> ids = new ArrayList<>(keys.keySet());
+        ids.sort((a, b) -> {
+            int byKey = Double.compare(keys.get(b), keys.get(a));
+            return byKey != 0 ? byKey : Integer.compare(a, b);
+        });
+        return ids.subList(0, Math.min(n, ids.size())).stream().mapToInt(Integer::intValue).toArray();
+    }
+    /**
+     * Replays entered/left events into a set, which must always equal the current top N.
+     */
+    private static final class Membership implements TopNIndex.Listener {
+        final Set<Integer> members = new HashSet<>();
+        @Override
+        public void entered(int id) {
+            assertTrue(members.add(id), "entered twice: " + id);
+        }
+        @Override
+        public void left(int id) {
+            assertTrue(members.remove(id), "left without entering: " + id);
+        }
+    }
+}
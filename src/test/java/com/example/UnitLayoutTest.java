@@ -0,0 +1,76 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+class UnitLayoutTest {
+    @TempDir
+    Path dir;
+    @Test
+    void perSymbolDiscoversUnitFilesInTheUnitDir() throws IOException {
+        for (String name : List.of("tradebot_btcusdc.service", "tradebot_ethusdc.service", "tradebot@.service", "tradebot_notes.txt",
+                "other.service", ".tradebot_solusdc.service.tmp")) {
+            Files.writeString(dir.resolve(name), "");
+        }
+        assertEquals(Set.of("tradebot_btcusdc.service", "tradebot_ethusdc.service"), UnitLayout.PER_SYMBOL.installedServices(dir));
+    }
+    @Test
+    void templateDiscoversEnabledInstancesFromWantsSymlinks() throws IOException {
+        Path template = Files.writeString(dir.resolve(UnitLayout.TEMPLATE_UNIT), "");
+        // A per-symbol unit lying next to the template is not an instance
+        Files.writeString(dir.resolve("tradebot_btcusdc.service"), "");
+        Path wants = Files.createDirectories(dir.resolve(UnitLayout.WANTS_DIR));
+        Files.createSymbolicLink(wants.resolve("tradebot@BTCUSDC.service"), template);
+        Files.createSymbolicLink(wants.resolve("tradebot@ETHUSDC.service"), template);
+        Files.createSymbolicLink(wants.resolve("sshd.service"), template);
+        assertEquals(Set.of("tradebot@BTCUSDC.service", "tradebot@ETHUSDC.service"), UnitLayout.TEMPLATE.installedServices(dir));
+    }
+    @Test
+    void templateWithoutAWantsDirHasNoInstances() {
+        assertTrue(UnitLayout.TEMPLATE.installedServices(dir).isEmpty());
+        assertTrue(UnitLayout.PER_SYMBOL.installedServices(dir.resolve("missing")).isEmpty());
+    }
+    @Test
+    void templateRendersOneUnitWithTheInstancePlaceholder() {
+        Map<String, String> units = UnitLayout.TEMPLATE.renderUnits(List.of("BTCUSDC", "ETHUSDC"), "/opt/bots", "/opt/bots/bot.jar", "trader");
+        assertEquals(Set.of(UnitLayout.TEMPLATE_UNIT), units.keySet());
+        String unit = units.get(UnitLayout.TEMPLATE_UNIT);
+        assertTrue(unit.contains("ExecStart=/usr/bin/java -jar /opt/bots/bot.jar %i\n"), unit);
+        assertTrue(unit.contains("StandardOutput=append:/opt/bots/" + BotOrchestrator.LOG_DIR + "/%i.log\n"), unit);
+        assertTrue(unit.contains("Description=Trading Bot for %i\n"), unit);
+        assertEquals(List.of("tradebot@BTCUSDC.service", "tradebot@ETHUSDC.service"), UnitLayout.TEMPLATE.serviceNames(List.of("BTCUSDC", "ETHUSDC")));
+    }
+    @Test
+    void perSymbolRendersOneUnitPerSymbol() {
+        Map<String, String> units = UnitLayout.PER_SYMBOL.renderUnits(List.of("BTCUSDC", "ETHUSDC"), "/opt/bots", "/opt/bots/bot.jar", "trader");
+        assertEquals(List.of("tradebot_btcusdc.service", "tradebot_ethusdc.service"), List.copyOf(units.keySet()));
+        assertTrue(units.get("tradebot_ethusdc.service").contains("ExecStart=/usr/bin/java -jar /opt/bots/bot.jar ETHUSDC\n"));
+    }
+    @Test
+    void restartsFollowTheLayout() {
+        UnitReconciler.Plan templateChanged = new UnitReconciler.Plan(Map.of(), Map.of(UnitLayout.TEMPLATE_UNIT, ""), List.of(), 0);
+        UnitReconciler.Plan nothingChanged = new UnitReconciler.Plan(Map.of(), Map.of(), List.of(UnitLayout.TEMPLATE_UNIT), 0);
+        List<String> kept = List.of("tradebot@BTCUSDC.service", "tradebot@ETHUSDC.service");
+        // Every instance shares the template, so a changed template restarts all of them
+        assertEquals(Set.copyOf(kept), UnitLayout.TEMPLATE.servicesToRestart(templateChanged, kept));
+        assertTrue(UnitLayout.TEMPLATE.servicesToRestart(nothingChanged, kept).isEmpty());
+        UnitReconciler.Plan oneChanged = new UnitReconciler.Plan(Map.of("tradebot_solusdc.service", ""),
+                Map.of("tradebot_ethusdc.service", ""), List.of("tradebot_btcusdc.service"), 0);
+        assertEquals(Set.of("tradebot_ethusdc.service"),
+                UnitLayout.PER_SYMBOL.servicesToRestart(oneChanged, List.of("tradebot_btcusdc.service", "tradebot_ethusdc.service")));
+    }
+    @Test
+    void layoutIsChosenByProperty() {
+        assertEquals(UnitLayout.PER_SYMBOL, UnitLayout.fromProperty(null));
+        assertEquals(UnitLayout.PER_SYMBOL, UnitLayout.fromProperty("Per-Symbol"));
+        assertEquals(UnitLayout.TEMPLATE, UnitLayout.fromProperty("template"));
+        assertThrows(IllegalArgumentException.class, () -> UnitLayout.fromProperty("instances"));
+    }
+}
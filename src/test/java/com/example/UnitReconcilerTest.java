@@ -0,0 +1,103 @@
+package com.example;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+class UnitReconcilerTest {
+    private static final FileTime OLD = FileTime.fromMillis(1_000_000_000_000L);
+    @TempDir
+    Path dir;
+    private final List<List<String>> commands = new ArrayList<>();
+    private boolean reloadFails;
+    private final SystemdBatch batch = new SystemdBatch(batched -> {
+        List<ProcessRunner.Result> results = new ArrayList<>(batched.size());
+        for (List<String> command : batched) {
+            commands.add(command);
+            String error = reloadFails && command.contains("daemon-reload") ? "Command failed with exit code 1" : null;
+            results.add(new ProcessRunner.Result(command, error == null ? 0 : 1, 0, List.of(), 0, error));
+        }
+        return results;
+    });
+    @Test
+    void planClassifiesUnitsByContent() throws IOException {
+        install("tradebot_btcusdc.service", unit("BTCUSDC"));
+        install("tradebot_ethusdc.service", unit("ETHUSDC").replace("RestartSec=10", "RestartSec=5"));
+        install("tradebot_xrpusdc.service", unit("XRPUSDC"));
+        UnitReconciler.Plan plan = UnitReconciler.plan(dir, desired("BTCUSDC", "ETHUSDC", "SOLUSDC"));
+        assertEquals(List.of("tradebot_btcusdc.service"), plan.unchanged());
+        assertEquals(Set.of("tradebot_ethusdc.service"), plan.updated().keySet());
+        assertEquals(Set.of("tradebot_solusdc.service"), plan.created().keySet());
+        assertTrue(plan.hasChanges());
+        // Installed units that are no longer desired are what the caller removes
+        Set<String> removed = UnitLayout.PER_SYMBOL.installedServices(dir);
+        removed.removeAll(desired("BTCUSDC", "ETHUSDC", "SOLUSDC").keySet());
+        assertEquals(Set.of("tradebot_xrpusdc.service"), removed);
+    }
+    @Test
+    void applyWritesOnlyChangedUnitsAndReloadsOnce() throws IOException {
+        install("tradebot_btcusdc.service", unit("BTCUSDC"));
+        install("tradebot_ethusdc.service", "stale");
+        Map<String, String> desired = desired("BTCUSDC", "ETHUSDC", "SOLUSDC");
+        UnitReconciler.Plan plan = UnitReconciler.plan(dir, desired);
+        List<String> services = List.copyOf(desired.keySet());
+        Set<String> kept = UnitLayout.PER_SYMBOL.installedServices(dir);
+        kept.retainAll(services);
+        UnitReconciler.apply(plan, new UnitFileWriter(dir), batch, services, UnitLayout.PER_SYMBOL.servicesToRestart(plan, kept));
+        assertEquals(OLD, Files.getLastModifiedTime(dir.resolve("tradebot_btcusdc.service")), "unchanged unit was rewritten");
+        for (Map.Entry<String, String> unit : desired.entrySet()) {
+            assertEquals(unit.getValue(), Files.readString(dir.resolve(unit.getKey())));
+        }
+        assertEquals(List.of(
+                List.of("systemctl", "daemon-reload"),
+                List.of("systemctl", "restart", "tradebot_ethusdc.service"),
+                List.of("systemctl", "enable", "--now", "tradebot_btcusdc.service", "tradebot_ethusdc.service", "tradebot_solusdc.service")),
+                commands);
+        try (Stream<Path> files = Files.list(dir)) {
+            assertFalse(files.anyMatch(file -> file.getFileName().toString().endsWith(".tmp")), "temp file left behind");
+        }
+    }
+    @Test
+    void unchangedUnitsSkipTheReload() throws IOException {
+        install("tradebot_btcusdc.service", unit("BTCUSDC"));
+        UnitReconciler.Plan plan = UnitReconciler.plan(dir, desired("BTCUSDC"));
+        assertFalse(plan.hasChanges());
+        UnitReconciler.apply(plan, new UnitFileWriter(dir), batch, List.of("tradebot_btcusdc.service"), Set.of());
+        assertEquals(List.of(List.of("systemctl", "enable", "--now", "tradebot_btcusdc.service")), commands);
+    }
+    @Test
+    void withoutABatchUnitsAreOnlyWritten() throws IOException {
+        UnitReconciler.apply(UnitReconciler.plan(dir, desired("BTCUSDC")), new UnitFileWriter(dir), null, List.of(), List.of());
+        assertEquals(unit("BTCUSDC"), Files.readString(dir.resolve("tradebot_btcusdc.service")));
+        assertTrue(commands.isEmpty());
+    }
+    @Test
+    void failedReloadAbortsBeforeStartingServices() {
+        reloadFails = true;
+        assertThrows(IOException.class, () -> UnitReconciler.apply(UnitReconciler.plan(dir, desired("BTCUSDC")), new UnitFileWriter(dir), batch,
+                List.of("tradebot_btcusdc.service"), List.of()));
+        assertEquals(List.of(List.of("systemctl", "daemon-reload")), commands);
+    }
+    private void install(String name, String content) throws IOException {
+        Path file = dir.resolve(name);
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, OLD);
+    }
+    private static Map<String, String> desired(String... symbols) {
+        return new LinkedHashMap<>(UnitLayout.PER_SYMBOL.renderUnits(List.of(symbols), "/opt/bots", "/opt/bots/bot.jar", "trader"));
+    }
+    private static String unit(String symbol) {
+        return BotOrchestrator.renderServiceFile(symbol, "/opt/bots", "/opt/bots/bot.jar", "trader");
+    }
+}
@@ -0,0 +1,152 @@
+package com.example;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+/**
+ * Minimal local WebSocket server standing in for stream.binance.com: completes the RFC 6455 handshake, then lets a
+ * test push text frames to each accepted client and close the connection. Client frames are not decoded.
+ */
+final class WebSocketStandIn implements Closeable {
+    private static final String HANDSHAKE_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private final ServerSocket server;
+    private final BlockingQueue<Connection> connections = new LinkedBlockingQueue<>();
+    /**
+     * One upgraded client connection.
+     */
+    static final class Connection {
+        private final Socket socket;
+        private final String path;
+        private Connection(Socket socket, String path) {
+            this.socket = socket;
+            this.path = path;
+        }
+        String path() {
+            return path;
+        }
+        synchronized void send(String text) throws IOException {
+            writeFrame(0x1, text.getBytes(StandardCharsets.UTF_8));
+        }
+        /**
+         * Sends a normal-closure frame, as Binance does on its 24-hour disconnect, and drops the socket shortly after.
+         */
+        synchronized void close() throws IOException {
+            writeFrame(0x8, new byte[] {0x03, (byte) 0xE8});
+            socket.setSoTimeout(1_000);
+            try {
+                // Give the client a moment to echo the close frame before the socket goes away
+                socket.getInputStream().read(new byte[128]);
+            } catch (IOException e) {
+                // Either way the connection is over
+            }
+            socket.close();
+        }
+        private void writeFrame(int opcode, byte[] payload) throws IOException {
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(payload.length + 10);
+            frame.write(0x80 | opcode);
+            if (payload.length < 126) {
+                frame.write(payload.length);
+            } else if (payload.length <= 0xFFFF) {
+                frame.write(126);
+                frame.write(payload.length >>> 8);
+                frame.write(payload.length);
+            } else {
+                frame.write(127);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    frame.write((int) ((long) payload.length >>> shift));
+                }
+            }
+            // Server frames are never masked
+            frame.write(payload);
+            OutputStream out = socket.getOutputStream();
+            frame.writeTo(out);
+            out.flush();
+        }
+    }
+    WebSocketStandIn() throws IOException {
+        server = new ServerSocket(0, 16, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "websocket-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+    String baseUrl() {
+        return "ws://127.0.0.1:" + server.getLocalPort();
+    }
+    /**
+     * Waits for the next client to complete its handshake, or returns null after the timeout.
+     */
+    Connection accept(long timeout, TimeUnit unit) throws InterruptedException {
+        return connections.poll(timeout, unit);
+    }
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                connections.add(new Connection(socket, handshake(socket)));
+            } catch (SocketException e) {
+                return;
+            } catch (IOException e) {
+                // A failed handshake only loses that client
+            }
+        }
+    }
+    private static String handshake(Socket socket) throws IOException {
+        InputStream in = socket.getInputStream();
+        String[] lines = readHeaders(in).split("\r\n");
+        String path = lines[0].split(" ")[1];
+        String key = null;
+        for (String line : lines) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Sec-WebSocket-Key")) {
+                key = line.substring(colon + 1).trim();
+            }
+        }
+        if (key == null) {
+            socket.close();
+            throw new IOException("Not a WebSocket upgrade: " + lines[0]);
+        }
+        String response = "HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n";
+        OutputStream out = socket.getOutputStream();
+        out.write(response.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+        return path;
+    }
+    private static String readHeaders(InputStream in) throws IOException {
+        ByteArrayOutputStream headers = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Connection closed during handshake");
+            }
+            headers.write(b);
+            matched = b == (matched % 2 == 0 ? '\r' : '\n') ? matched + 1 : b == '\r' ? 1 : 0;
+        }
+        return headers.toString(StandardCharsets.US_ASCII);
+    }
+    private static String acceptKey(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + HANDSHAKE_GUID).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is a required JDK algorithm", e);
+        }
+    }
+}